@@ -0,0 +1,420 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.mongodb.client.model.CountOptions;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedFindIterable;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoDatabase;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recognizer for the most common statements, executed without entering the JavaScript engine:
+ * <pre>
+ * db.orders.find({...}, {...}).sort({...}).skip(n).limit(n)
+ * db.orders.aggregate([...])
+ * db.orders.count({...})
+ * </pre>
+ * The database can be 'db', a database name or db.getCollection('name').
+ * The arguments are parsed as JSON, with unquoted keys and single quoted strings, like in the Mongo Shell.
+ * Any other statement, or arguments using JavaScript functions other than ObjectId(), are executed by GraalJS.
+ * Prepared statements may use '?' placeholders in arguments. They are parsed as Parameter and replaced by bind().
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+class FastPathQuery {
+
+    private static final String DEFAULT_DATABASE = "db";
+
+    // WrappedMongoDatabase MEMBERS WHICH ARE NOT COLLECTIONS
+    private static final Set<String> DATABASE_MEMBERS = new HashSet<>(Arrays.asList(
+            "createView", "getCollection", "createCollection", "runCommand", "drop", "listCollectionNames",
+            "listCollections", "getViewSource", "getName"));
+
+    // KEYS INTERPRETED BY THE JSON READER AS EXTENDED JSON, WHICH IN JAVASCRIPT ARE PLAIN KEYS OR QUERY OPERATORS
+    private static final Set<String> EXTENDED_JSON_KEYS = new HashSet<>(Arrays.asList(
+            "$oid", "$date", "$numberLong", "$numberInt", "$numberDouble", "$numberDecimal", "$binary", "$subType",
+            "$type", "$regex", "$options", "$regularExpression", "$timestamp", "$minKey", "$maxKey", "$undefined",
+            "$symbol", "$code", "$scope", "$dbPointer", "$ref", "$id", "$uuid"));
+
+    // PLACEHOLDERS ARE WRITTEN AS STRINGS STARTING WITH A NUL CHARACTER, WHICH CANNOT BE TYPED IN A QUERY BY MISTAKE
+    private static final String PARAMETER_PREFIX = "\u0000?";
+    private static final String PARAMETER_LITERAL_PREFIX = "\"\\u0000?";
+
+    static class Call {
+        final String method;
+        final List<Object> arguments;
+
+        Call( String method, List<Object> arguments ){
+            this.method = method;
+            this.arguments = arguments;
+        }
+    }
+
+    static class Parameter {
+        final int index;
+
+        Parameter( int index ){
+            this.index = index;
+        }
+    }
+
+    final String databaseName, collectionName;
+    final Call call;
+    final List<Call> chain;
+    private final boolean hasParameters;
+
+    private FastPathQuery( String databaseName, String collectionName, Call call, List<Call> chain, boolean hasParameters ){
+        this.databaseName = databaseName;
+        this.collectionName = collectionName;
+        this.call = call;
+        this.chain = chain;
+        this.hasParameters = hasParameters;
+    }
+
+    /**
+     * JSON literal used in the statement text in place of the '?' placeholder with the given index.
+     */
+    static String parameterLiteral( int index ){
+        return PARAMETER_LITERAL_PREFIX + index + "\"";
+    }
+
+    /**
+     * @return the parsed statement, or null if the statement has to be executed by the JavaScript engine.
+     */
+    static FastPathQuery parse( String query ){
+        if ( query == null ) return null;
+        final Parser parser = new Parser( query );
+        final String databaseName = parser.identifier();
+        if ( databaseName == null || !parser.consume('.') ) return null;
+        String collectionName = parser.identifier();
+        if ( "getCollection".equals( collectionName )){
+            final List<Object> args = parser.arguments();
+            collectionName = ( args != null && args.size() == 1 && args.get(0) instanceof String ) ? (String)args.get(0) : null;
+        } else if ( DATABASE_MEMBERS.contains( collectionName )){
+            return null;
+        }
+        if ( collectionName == null || !parser.consume('.') ) return null;
+
+        final Call call = parser.call();
+        if ( call == null || !isValidCall( call ) ) return null;
+        final List<Call> chain = new ArrayList<>();
+        while ( parser.consume('.') ){
+            final Call chainCall = parser.call();
+            if ( chainCall == null || !"find".equals( call.method ) || !isValidChainCall( chainCall ) ) return null;
+            chain.add( chainCall );
+        }
+        parser.consume(';');
+        if ( !parser.isAtEnd() ) return null;
+        return new FastPathQuery( databaseName, collectionName, call, chain, query.contains( PARAMETER_LITERAL_PREFIX ) );
+    }
+
+    /**
+     * @return a copy of this statement with the parameter values in place of the placeholders,
+     * or null if the values do not fit the statement, like a string passed to limit().
+     */
+    FastPathQuery bind( Object[] parameters ){
+        if ( !hasParameters ) return this;
+        final Call boundCall = new Call( call.method, (List<Object>)bindValue( call.arguments, parameters ));
+        if ( !isValidCall( boundCall )) return null;
+        final List<Call> boundChain = new ArrayList<>();
+        for ( Call chainCall : chain ){
+            final Call boundChainCall = new Call( chainCall.method, (List<Object>)bindValue( chainCall.arguments, parameters ));
+            if ( !isValidChainCall( boundChainCall )) return null;
+            boundChain.add( boundChainCall );
+        }
+        return new FastPathQuery( databaseName, collectionName, boundCall, boundChain, false );
+    }
+
+    private static Object bindValue( Object value, Object[] parameters ){
+        if ( value instanceof Parameter ){
+            final int index = ((Parameter)value).index;
+            return parameters != null && index < parameters.length ? parameters[index] : null;
+        } else if ( value instanceof Map ){
+            final Document copy = new Document();
+            for ( Map.Entry<?,?> entry : ((Map<?,?>)value).entrySet() ){
+                copy.put( String.valueOf( entry.getKey() ), bindValue( entry.getValue(), parameters ));
+            }
+            return copy;
+        } else if ( value instanceof List ){
+            final List<Object> copy = new ArrayList<>();
+            for ( Object obj : (List<?>)value ){
+                copy.add( bindValue( obj, parameters ));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static Object replaceParameters( Object value ){
+        if ( value instanceof String && ((String)value).startsWith( PARAMETER_PREFIX )){
+            return new Parameter( Integer.parseInt( ((String)value).substring( PARAMETER_PREFIX.length() )));
+        } else if ( value instanceof Map ){
+            for ( Map.Entry<Object,Object> entry : ((Map<Object,Object>)value).entrySet() ){
+                entry.setValue( replaceParameters( entry.getValue() ));
+            }
+        } else if ( value instanceof List ){
+            final ListIterator<Object> it = ((List<Object>)value).listIterator();
+            while ( it.hasNext() ){
+                it.set( replaceParameters( it.next() ));
+            }
+        }
+        return value;
+    }
+
+    private static boolean isValidCall( Call call ){
+        final List<Object> args = call.arguments;
+        switch ( call.method ){
+            case "find" : return args.size() <= 2 && allMaps( args );
+            case "count":
+            case "countDocuments": return args.size() <= 1 && allMaps( args );
+            case "aggregate": return args.size() == 1 && args.get(0) instanceof List && allMaps( (List<?>)args.get(0));
+            default: return false;
+        }
+    }
+
+    private static boolean isValidChainCall( Call call ){
+        final List<Object> args = call.arguments;
+        switch ( call.method ){
+            case "sort":
+            case "projection": return args.size() == 1 && allMaps( args );
+            case "limit":
+            case "skip": return args.size() == 1 && ( args.get(0) instanceof Number || args.get(0) instanceof Parameter );
+            case "pretty":
+            case "count": return args.isEmpty();
+            default: return false;
+        }
+    }
+
+    private static boolean allMaps( List<?> list ){
+        for ( Object obj : list ){
+            if ( !( obj instanceof Map || obj instanceof Parameter )) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param maxRows if positive, the find() limit or a $limit stage appended to the aggregate pipeline.
+     * @param queryTimeout if positive, the maxTime in seconds for count(). The statement sets it for find() and aggregate().
+     * @param columns if not empty, a $project stage appended to the aggregate pipeline. The statement sets the find() projection.
+     * @return the result, same as the JavaScript engine would return, or null if the database is not known.
+     */
+    Object execute( MongoConnection connection, int maxRows, int queryTimeout, Collection<String> columns ){
+        final WrappedMongoDatabase database = getDatabase( connection );
+        if ( database == null ) return null;
+        WrappedMongoCollection collection = database.getCollection( collectionName );
+        // WITH rawBson=true THE CURSORS RETURN THE DOCUMENTS AS BYTES, DECODED ONLY WHEN A COLUMN IS READ
+        if ( connection.client.rawDocuments && ( "find".equals( call.method ) || "aggregate".equals( call.method ))){
+            collection = collection.withDocumentClass( RawBsonDocument.class );
+        }
+        final List<Object> args = call.arguments;
+        switch ( call.method ){
+            case "find": {
+                WrappedFindIterable iterable;
+                if ( args.isEmpty() ) iterable = collection.find();
+                else if ( args.size() == 1 ) iterable = collection.find( (Map)args.get(0));
+                else iterable = collection.find( (Map)args.get(0), (Map)args.get(1));
+                if ( queryTimeout > 0 ){
+                    iterable.maxTime( queryTimeout, TimeUnit.SECONDS );
+                }
+                for ( Call chainCall : chain ){
+                    final Object arg = chainCall.arguments.isEmpty() ? null : chainCall.arguments.get(0);
+                    switch ( chainCall.method ){
+                        case "sort": iterable.sort( (Map)arg ); break;
+                        case "projection": iterable.projection( (Map)arg ); break;
+                        case "limit": iterable.limit( ((Number)arg).intValue() ); break;
+                        case "skip": iterable.skip( ((Number)arg).intValue() ); break;
+                        case "count": return iterable.count();
+                        default: break;
+                    }
+                }
+                if ( maxRows > 0 ){
+                    iterable.applyMaxRows( maxRows );
+                }
+                return iterable;
+            }
+            case "count":
+            case "countDocuments":
+                if ( queryTimeout > 0 ){
+                    return collection.count( args.isEmpty() ? new Document() : (Map)args.get(0), new CountOptions().maxTime( queryTimeout, TimeUnit.SECONDS ));
+                }
+                return args.isEmpty() ? collection.count() : collection.count( (Map)args.get(0));
+            case "aggregate": {
+                final List<Object> pipeline = new ArrayList<>( (List<?>)args.get(0) );
+                final boolean endsWithWrite = !pipeline.isEmpty() && isWriteStage( pipeline.get( pipeline.size() - 1 ));
+                if ( columns != null && !columns.isEmpty() && !endsWithWrite ){
+                    pipeline.add( new Document("$project", GraalConvertor.toProjection( columns )));
+                }
+                if ( maxRows > 0 && !pipeline.isEmpty() && !endsWithWrite ){
+                    pipeline.add( new Document("$limit", maxRows ));
+                }
+                return collection.aggregate( pipeline );
+            }
+            default:
+                return null;
+        }
+    }
+
+    // $out AND $merge HAVE TO BE THE LAST STAGE. ALL DOCUMENTS SHOULD BE WRITTEN, SO WE DO NOT LIMIT THEM.
+    private static boolean isWriteStage( Object stage ){
+        return stage instanceof Map && ( ((Map<?,?>)stage).containsKey("$out") || ((Map<?,?>)stage).containsKey("$merge"));
+    }
+
+    private WrappedMongoDatabase getDatabase( MongoConnection connection ){
+        final List<String> databaseNames = connection.getDatabaseNames();
+        if ( DEFAULT_DATABASE.equals( databaseName )){
+            final String catalog = connection.getCatalog();
+            return connection.getDatabase( catalog != null && databaseNames.contains( catalog ) ? catalog : "admin" );
+        }
+        return databaseNames.contains( databaseName ) ? connection.getDatabase( databaseName ) : null;
+    }
+
+
+    private static class Parser {
+
+        private final String text;
+        private int pos = 0;
+
+        Parser( String text ){
+            this.text = text;
+        }
+
+        private void skipSpaces(){
+            while ( pos < text.length() && Character.isWhitespace( text.charAt( pos ))) pos++;
+        }
+
+        boolean isAtEnd(){
+            skipSpaces();
+            return pos == text.length();
+        }
+
+        boolean consume( char c ){
+            skipSpaces();
+            if ( pos < text.length() && text.charAt( pos ) == c ){
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        String identifier(){
+            skipSpaces();
+            final int start = pos;
+            if ( pos < text.length() && Character.isJavaIdentifierStart( text.charAt( pos ))){
+                pos++;
+                while ( pos < text.length() && Character.isJavaIdentifierPart( text.charAt( pos ))) pos++;
+                return text.substring( start, pos );
+            }
+            return null;
+        }
+
+        Call call(){
+            final String method = identifier();
+            if ( method == null ) return null;
+            final List<Object> args = arguments();
+            return args != null ? new Call( method, args ) : null;
+        }
+
+        /**
+         * Parse '( arg, arg, ... )'. Returns null if the arguments are not plain JSON values.
+         */
+        List<Object> arguments(){
+            if ( !consume('(') ) return null;
+            final List<Object> args = new ArrayList<>();
+            int depth = 0, argStart = pos;
+            while ( pos < text.length() ){
+                final char c = text.charAt( pos );
+                if ( c == '"' || c == '\'' ){
+                    pos = skipString( text, pos );
+                    if ( pos < 0 ) return null;
+                    continue;
+                }
+                if ( c == '(' || c == '{' || c == '[' ) {
+                    depth++;
+                } else if ( c == '}' || c == ']' ) {
+                    depth--;
+                } else if ( c == ')' && depth > 0 ){
+                    depth--;
+                } else if ( depth == 0 && ( c == ',' || c == ')' )){
+                    final String argText = text.substring( argStart, pos ).trim();
+                    if ( !argText.isEmpty() || c == ',' || !args.isEmpty() ){
+                        final Object value = parseValue( argText );
+                        if ( value == null ) return null;
+                        args.add( value );
+                    }
+                    argStart = ++pos;
+                    if ( c == ')' ) return args;
+                    continue;
+                }
+                pos++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return the parsed value, or null if the text is not plain JSON.
+     */
+    static Object parseValue( String text ){
+        if ( text.isEmpty() || !isPlainJson( text ) ) return null;
+        try {
+            return replaceParameters( Document.parse("{\"v\":" + text + "}").get("v") );
+        } catch ( RuntimeException ex ){
+            return null;
+        }
+    }
+
+    /**
+     * Accept only JSON literals: documents, arrays, strings, numbers, true, false, null and ObjectId('...').
+     */
+    static boolean isPlainJson( String text ){
+        int i = 0;
+        final int len = text.length();
+        while ( i < len ){
+            final char c = text.charAt( i );
+            if ( c == '"' || c == '\'' ){
+                final int start = i;
+                i = skipString( text, i );
+                if ( i < 0 ) return false;
+                if ( nextNonSpace( text, i ) == ':' && EXTENDED_JSON_KEYS.contains( text.substring( start + 1, i - 1 ))) return false;
+            } else if ( Character.isJavaIdentifierStart( c )){
+                final int start = i;
+                while ( i < len && Character.isJavaIdentifierPart( text.charAt( i ))) i++;
+                final String word = text.substring( start, i );
+                final char next = nextNonSpace( text, i );
+                if ( next == ':' ){
+                    if ( EXTENDED_JSON_KEYS.contains( word )) return false;
+                } else if ( !"true".equals( word ) && !"false".equals( word ) && !"null".equals( word ) && !( "ObjectId".equals( word ) && next == '(' )){
+                    return false;
+                }
+            } else if ( Character.isDigit( c ) || c == '-' || c == '.' ){
+                i++;
+                while ( i < len && ( Character.isDigit( text.charAt( i )) || "eE.+-".indexOf( text.charAt( i )) > -1 )) i++;
+            } else if ( "{}[]:,()".indexOf( c ) > -1 || Character.isWhitespace( c )){
+                i++;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipString( String text, int pos ){
+        final char quote = text.charAt( pos++ );
+        while ( pos < text.length() ){
+            final char c = text.charAt( pos++ );
+            if ( c == '\\' ) pos++;
+            else if ( c == quote ) return pos;
+        }
+        return -1;
+    }
+
+    private static char nextNonSpace( String text, int pos ){
+        while ( pos < text.length() && Character.isWhitespace( text.charAt( pos ))) pos++;
+        return pos < text.length() ? text.charAt( pos ) : 0;
+    }
+
+}
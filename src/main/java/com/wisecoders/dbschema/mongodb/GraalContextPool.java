@@ -0,0 +1,159 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+
+import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
+
+/**
+ * Driver-wide GraalJS engine shared by all connections, plus a bounded pool of pre-warmed contexts.
+ * Contexts built on the same Engine share parsed sources and compiled code, so opening a new connection
+ * does not start a cold JavaScript interpreter. The pool size can be set in the URL with contextPool=&lt;n&gt;.
+ * The init.js helpers are parsed once into a cached Source and evaluated once per context.
+ * Each context is handed out to one connection only and closed with the connection.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+class GraalContextPool {
+
+    static final int DEFAULT_POOL_SIZE = 4;
+    static final ScriptCache SCRIPT_CACHE = new ScriptCache( ScriptCache.DEFAULT_CACHE_SIZE );
+
+    private static Engine engine;
+    private static Source initSource;
+    private static final Deque<PooledContext> idleContexts = new ArrayDeque<>();
+    private static int poolSize = DEFAULT_POOL_SIZE;
+    private static boolean warmUpRunning = false;
+
+    static class PooledContext {
+
+        final Context context;
+
+        private PooledContext( Context context ){
+            this.context = context;
+        }
+
+        private void close(){
+            try {
+                context.close();
+            } catch ( Throwable ex ){
+                LOGGER.log(Level.FINE, "Error closing JavaScript context", ex );
+            }
+        }
+    }
+
+    private static synchronized Engine getEngine(){
+        if ( engine == null ){
+            engine = Engine.newBuilder("js").build();
+        }
+        return engine;
+    }
+
+    private static synchronized Source getInitSource() throws IOException {
+        if ( initSource == null ){
+            final String initScript = Util.readStringFromInputStream(GraalContextPool.class.getResourceAsStream("init.js"));
+            initSource = Source.newBuilder("js", initScript, "init.js").build();
+        }
+        return initSource;
+    }
+
+    /**
+     * Create a context on the shared engine and define the ObjectId, ISODate, Date, ... helpers from init.js.
+     */
+    private static PooledContext createContext() throws Exception {
+        // Without this it doesn't find the JS or Truffle
+        Thread.currentThread().setContextClassLoader( Context.class.getClassLoader());
+        //https://github.com/oracle/graaljs/issues/214
+        final PooledContext pooled = new PooledContext( Context.newBuilder("js").engine( getEngine() ).allowAllAccess(true).build() );
+        pooled.context.eval( getInitSource() );
+        return pooled;
+    }
+
+    /**
+     * Take a pre-warmed context from the pool, or create a new one if the pool is empty.
+     * Each context is used by only one connection, so no script state or client object is passed to the next connection.
+     */
+    static PooledContext acquire() throws Exception {
+        PooledContext pooled = null;
+        synchronized ( idleContexts ){
+            if ( !idleContexts.isEmpty() ){
+                pooled = idleContexts.pop();
+            }
+        }
+        // REFILL THE POOL IN BACKGROUND
+        warmUp();
+        return pooled != null ? pooled : createContext();
+    }
+
+    /**
+     * Close the context after the connection is closed. Contexts are not reused, because scripts may have changed
+     * the built-in objects or kept references to the connection client. The parsed sources and the compiled code
+     * are kept in the shared engine.
+     */
+    static void release( PooledContext pooled ){
+        if ( pooled != null ){
+            pooled.close();
+        }
+    }
+
+    /**
+     * Set the maximal number of idle contexts and start creating them in background, so the first statements
+     * of the next connections find them ready.
+     */
+    static void setPoolSize( int size ){
+        synchronized ( idleContexts ){
+            poolSize = Math.max( 0, size );
+            while ( idleContexts.size() > poolSize ){
+                idleContexts.removeLast().close();
+            }
+        }
+        warmUp();
+    }
+
+    /**
+     * Start creating idle contexts in background, up to the current pool size.
+     */
+    static void warmUp(){
+        synchronized ( idleContexts ){
+            if ( warmUpRunning || idleContexts.size() >= poolSize ){
+                return;
+            }
+            warmUpRunning = true;
+        }
+        final Thread thread = new Thread(GraalContextPool::warmUpPool, "MongoJdbc-JavaScript-WarmUp");
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    private static void warmUpPool(){
+        try {
+            while ( true ){
+                synchronized ( idleContexts ){
+                    if ( idleContexts.size() >= poolSize ) return;
+                }
+                final PooledContext pooled = createContext();
+                synchronized ( idleContexts ){
+                    if ( idleContexts.size() >= poolSize ) {
+                        pooled.close();
+                        return;
+                    }
+                    idleContexts.push( pooled );
+                }
+            }
+        } catch ( Throwable ex ){
+            LOGGER.log(Level.SEVERE, "Error warming up JavaScript contexts", ex );
+        } finally {
+            synchronized ( idleContexts ){
+                warmUpRunning = false;
+            }
+        }
+    }
+
+}
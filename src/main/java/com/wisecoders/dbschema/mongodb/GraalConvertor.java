@@ -2,12 +2,16 @@ package com.wisecoders.dbschema.mongodb;
 
 import com.google.gson.Gson;
 import com.mongodb.BasicDBObject;
+import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -46,6 +50,33 @@ public class GraalConvertor {
     }
 
 
+    /**
+     * Projection document for the given field names. The _id is excluded if it is not in the list.
+     * Fields whose parent is also in the list, like a.b with a, are skipped, as the server rejects such path collisions.
+     */
+    public static Document toProjection( Collection<String> columns ){
+        final Set<String> columnSet = new HashSet<>( columns );
+        final Document projection = new Document();
+        for ( String column : columns ){
+            if ( !hasParentIn( column, columnSet )){
+                projection.put( column, 1 );
+            }
+        }
+        if ( !columns.contains("_id") ){
+            projection.put("_id", 0 );
+        }
+        return projection;
+    }
+
+    private static boolean hasParentIn( String column, Set<String> columns ){
+        for ( int idx = column.indexOf('.'); idx > 0; idx = column.indexOf('.', idx + 1 )){
+            if ( columns.contains( column.substring( 0, idx ))){
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static final Pattern HEXADECIMAL_PATTERN = Pattern.compile("\\p{XDigit}+");
 
     public static Map convertMap( Map map ){
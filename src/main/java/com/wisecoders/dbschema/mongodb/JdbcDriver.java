@@ -1,6 +1,7 @@
 
 package com.wisecoders.dbschema.mongodb;
 
+import com.wisecoders.dbschema.mongodb.resultSet.ResultSetIterator;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoClient;
 
 import java.io.File;
@@ -65,6 +66,15 @@ public class JdbcDriver implements Driver
             int idx;
             ScanStrategy scan = ScanStrategy.fast;
             boolean expand = false, sortFields = false;
+            // THE CONTEXT POOL AND THE SCRIPT CACHE ARE DRIVER-WIDE, SO THEY ARE RESIZED ONLY BY URLS WITH THE contextPool OR scriptCache PARAMETER
+            Integer contextPoolSize = null, scriptCacheSize = null;
+            int maxBatchSize = WrappedMongoClient.DEFAULT_MAX_BATCH_SIZE;
+            boolean orderedBatch = true;
+            int maxReadAhead = ResultSetIterator.DEFAULT_MAX_READ_AHEAD;
+            boolean rawDocuments = false;
+            int discoverThreads = WrappedMongoClient.DEFAULT_DISCOVER_THREADS;
+            long sampleSize = ScanStrategy.sample.SCAN_COUNT;
+            boolean schemaCache = false, watchSchema = false;
             String trustStore = null, trustStorePassword = null;
             String newUrl = url, urlWithoutParams = url;
             if ( ( idx = url.indexOf("?")) > 0 ){
@@ -83,6 +93,22 @@ public class JdbcDriver implements Driver
                         case "sort": sortFields = Boolean.parseBoolean( value); break;
                         case "truststore": trustStore = value; break;
                         case "truststorepassword": trustStorePassword = value; break;
+                        case "contextpool": try { contextPoolSize = Integer.parseInt( value ); } catch ( NumberFormatException ignore ){}
+                            break;
+                        case "scriptcache": try { scriptCacheSize = Integer.parseInt( value ); } catch ( NumberFormatException ignore ){}
+                            break;
+                        case "batchsize": try { maxBatchSize = Integer.parseInt( value ); } catch ( NumberFormatException ignore ){}
+                            break;
+                        case "orderedbatch": orderedBatch = Boolean.parseBoolean( value ); break;
+                        case "readahead": try { maxReadAhead = Integer.parseInt( value ); } catch ( NumberFormatException ignore ){}
+                            break;
+                        case "rawbson": rawDocuments = Boolean.parseBoolean( value ); break;
+                        case "samplesize": try { sampleSize = Long.parseLong( value ); } catch ( NumberFormatException ignore ){}
+                            break;
+                        case "schemacache": schemaCache = Boolean.parseBoolean( value ); break;
+                        case "watchschema": watchSchema = Boolean.parseBoolean( value ); break;
+                        case "discoverthreads": try { discoverThreads = Integer.parseInt( value ); } catch ( NumberFormatException ignore ){}
+                            break;
                         default:
                             if ( sbParams.length() > 0 ) sbParams.append("&");
                             sbParams.append( pair );
@@ -105,8 +131,24 @@ public class JdbcDriver implements Driver
                 databaseName = urlWithoutParams.substring( idx + 1 );
             }
 
+            if ( contextPoolSize != null ){
+                GraalContextPool.setPoolSize( contextPoolSize );
+            } else {
+                GraalContextPool.warmUp();
+            }
+            if ( scriptCacheSize != null ){
+                GraalContextPool.SCRIPT_CACHE.setMaxSize( scriptCacheSize );
+            }
             LOGGER.info("MongoClient URL: " + url + " rewritten as " + newUrl );
             final WrappedMongoClient client = new WrappedMongoClient(newUrl, info, databaseName, scan, expand, sortFields );
+            client.maxBatchSize = maxBatchSize;
+            client.orderedBatch = orderedBatch;
+            client.maxReadAhead = Math.max( 1, maxReadAhead );
+            client.rawDocuments = rawDocuments;
+            client.discoverThreads = Math.max( 1, discoverThreads );
+            client.sampleSize = Math.max( 1, sampleSize );
+            client.schemaCache = schemaCache;
+            client.watchSchema = watchSchema;
             return new MongoConnection(client);
         }
         return null;
@@ -122,6 +122,8 @@ public class MongoConnection implements Connection
     @Override
 	public void close() {
     	client.close();
+		GraalContextPool.release( pooledContext );
+		pooledContext = null;
 		isClosed = true;
 	}
 
@@ -402,17 +404,34 @@ public class MongoConnection implements Connection
         return 0;  
     }
 
-	private Context context;
+	private GraalContextPool.PooledContext pooledContext;
 
-	public Context createContext(){
+	/**
+	 * Parsed statements are shared by all connections, as they all use the same JavaScript engine.
+	 * Use getScriptCache().getHitRatio() to check how many statements are served from cache.
+	 */
+	public ScriptCache getScriptCache(){
+		return GraalContextPool.SCRIPT_CACHE;
+	}
+
+	/**
+	 * The context is taken from the driver-wide pool on first use and closed with the connection.
+	 */
+	public Context createContext() throws Exception {
 		// System.setProperty("polyglot.engine.WarnInterpreterOnly", "false");
 		// Without this it doesn't find the JS or Truffle
 		Thread.currentThread().setContextClassLoader( Context.class.getClassLoader());
-		//https://github.com/oracle/graaljs/issues/214
-		if ( context == null ) {
-			context = Context.newBuilder("js").allowAllAccess(true).build();
+		if ( pooledContext == null ) {
+			pooledContext = GraalContextPool.acquire();
 		}
-		return context;
+		return pooledContext.context;
+	}
+
+	/**
+	 * Drop the context after it was closed by a statement timeout or cancel(). The next statement takes a new one.
+	 */
+	void discardContext(){
+		pooledContext = null;
 	}
 
 }
@@ -118,20 +118,29 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
             "NULLABLE", "REMARKS", "COLUMN_DEF", "SQL_DATA_TYPE", "SQL_DATETIME_SUB", "CHAR_OCTET_LENGTH",
             "ORDINAL_POSITION", "IS_NULLABLE", "SCOPE_CATALOG", "SCOPE_SCHEMA", "SCOPE_TABLE",
             "SOURCE_DATA_TYPE", "IS_AUTOINCREMENT"});
-
-        for (String tableName : tableNames) {
-            // As far as this driver implementation goes, every "table" in MongoDB is actually a collection, and
-            // every collection "table" has two columns - "_id" column which is the primary key, and a "document"
-            // column which is the JSON document corresponding to the "_id". An "_id" value can be specified on
-            // insert, or it can be omitted, in which case MongoDB generates a unique value.
-            MetaCollection collection = con.client.getDatabase(catalogName).getMetaCollection(tableName);
-
-            //LOGGER.info( "Export Collection '" + tableName + "' fields");
-            if (collection != null) {
-                for (MetaField field : collection.fields) {
-                    if (columnNamePattern == null || columnNamePattern.equals(field.name)) {
-                        exportColumnsRecursive(collection, result, field);
-                    }
+        result.setColumnTypes(Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+            Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+            Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.SMALLINT, Types.VARCHAR);
+
+        // As far as this driver implementation goes, every "table" in MongoDB is actually a collection, and
+        // every collection "table" has two columns - "_id" column which is the primary key, and a "document"
+        // column which is the JSON document corresponding to the "_id". An "_id" value can be specified on
+        // insert, or it can be omitted, in which case MongoDB generates a unique value.
+        final List<MetaCollection> collections;
+        try {
+            // WITHOUT TABLE PATTERN ALL COLLECTIONS ARE DISCOVERED, IN PARALLEL
+            collections = con.client.getDatabase(catalogName).getMetaCollections(tableNames, tableNamePattern == null ? con.client.discoverThreads : 1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while discovering the collections.", ex);
+        }
+        for (MetaCollection collection : collections) {
+            //LOGGER.info( "Export Collection '" + collection.name + "' fields");
+            for (MetaField field : collection.fields) {
+                if (columnNamePattern == null || columnNamePattern.equals(field.name)) {
+                    exportColumnsRecursive(collection, result, field);
                 }
             }
         }
@@ -141,23 +150,23 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
 
     private void exportColumnsRecursive(MetaCollection collection, ArrayResultSet result, MetaField field) {
         //LOGGER.info( "Export Collection '" + collection.name + "' field '" + field.getNameWithPath() + "'");
-        result.addRow(new String[] { collection.metaDatabase.name, // "TABLE_CAT",
+        result.addRow(new Object[] { collection.metaDatabase.name, // "TABLE_CAT",
                 null, // "TABLE_SCHEMA",
                 collection.name, // "TABLE_NAME", (i.e. MongoDB Collection Name)
                 field.getNameWithPath(), // "COLUMN_NAME",
-                "" + field.getJavaType(), // "DATA_TYPE",
+                field.getJavaType(), // "DATA_TYPE",
                 field.getTypeName(), // "TYPE_NAME",
-                "800", // "COLUMN_SIZE",
-                "0", // "BUFFER_LENGTH", (not used)
-                "0", // "DECIMAL_DIGITS",
-                "10", // "NUM_PREC_RADIX",
-                "" + ( field.isMandatory() ? columnNoNulls : columnNullable ), // "NULLABLE",
+                800, // "COLUMN_SIZE",
+                0, // "BUFFER_LENGTH", (not used)
+                0, // "DECIMAL_DIGITS",
+                10, // "NUM_PREC_RADIX",
+                field.isMandatory() ? columnNoNulls : columnNullable, // "NULLABLE",
                 field.getDescription(), // "REMARKS",
                 field.getOptions(), // "COLUMN_DEF",
-                "0", // "SQL_DATA_TYPE", (not used)
-                "0", // "SQL_DATETIME_SUB", (not used)
-                "800", // "CHAR_OCTET_LENGTH",
-                "1", // "ORDINAL_POSITION",
+                0, // "SQL_DATA_TYPE", (not used)
+                0, // "SQL_DATETIME_SUB", (not used)
+                800, // "CHAR_OCTET_LENGTH",
+                1, // "ORDINAL_POSITION",
                 "NO", // "IS_NULLABLE",
                 null, // "SCOPE_CATLOG", (not a REF type)
                 null, // "SCOPE_SCHEMA", (not a REF type)
@@ -193,18 +202,19 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         ArrayResultSet result = new ArrayResultSet();
         result.setColumnNames(new String[] { "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME",
                 "KEY_SEQ", "PK_NAME" });
+        result.setColumnTypes(Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.SMALLINT, Types.VARCHAR);
 
         final MetaCollection collection = con.client.getDatabase(catalogName).getMetaCollection(tableNamePattern);
         if ( collection != null ){
             for ( MetaIndex index : collection.metaIndexes){
                 if ( index.pk ) {
                     for ( MetaField field : index.metaFields){
-                        result.addRow( new String[] {
+                        result.addRow( new Object[] {
                                 collection.name, // "TABLE_CAT",
                                 null, // "TABLE_SCHEMA",
                                 collection.name, // "TABLE_NAME", (i.e. MongoDB Collection Name)
                                 field.getNameWithPath(), // "COLUMN_NAME",
-                                "" + index.metaFields.indexOf( field ) + 1 , // "ORDINAL_POSITION"
+                                index.metaFields.indexOf( field ) + 1 , // "ORDINAL_POSITION"
                                 index.name // "INDEX_NAME",
                         });
                     }
@@ -261,6 +271,9 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         result.setColumnNames(new String[]{"TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "NON_UNIQUE",
                 "INDEX_QUALIFIER", "INDEX_NAME", "TYPE", "ORDINAL_POSITION", "COLUMN_NAME", "ASC_OR_DESC",
                 "CARDINALITY", "PAGES", "FILTER_CONDITION"});
+        result.setColumnTypes(Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN,
+                Types.VARCHAR, Types.VARCHAR, Types.SMALLINT, Types.SMALLINT, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.INTEGER, Types.VARCHAR);
 
         MetaCollection collection = con.client.getDatabase(catalogName).getMetaCollection(tableNamePattern);
 
@@ -268,18 +281,18 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
             for ( MetaIndex index : collection.metaIndexes){
                 if ( !index.pk ){
                     for ( MetaField field : index.metaFields){
-                        result.addRow(new String[] { collection.name, // "TABLE_CAT",
+                        result.addRow(new Object[] { collection.name, // "TABLE_CAT",
                                 null, // "TABLE_SCHEMA",
                                 collection.name, // "TABLE_NAME", (i.e. MongoDB Collection Name)
-                                index.unique ? "false" : "true", // "NON-UNIQUE",
+                                !index.unique, // "NON-UNIQUE",
                                 collection.name, // "INDEX QUALIFIER",
                                 index.name, // "INDEX_NAME",
-                                "0", // "TYPE",
-                                "" + index.metaFields.indexOf( field ) + 1 , // "ORDINAL_POSITION"
+                                0, // "TYPE",
+                                index.metaFields.indexOf( field ) + 1 , // "ORDINAL_POSITION"
                                 field.getNameWithPath(), // "COLUMN_NAME",
                                 "A", // "ASC_OR_DESC",
-                                "0", // "CARDINALITY",
-                                "0", // "PAGES",
+                                0, // "CARDINALITY",
+                                0, // "PAGES",
                                 "" // "FILTER_CONDITION",
                         });
                     }
@@ -338,45 +351,49 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
                 "LITERAL_SUFFIX", "CREATE_PARAMS", "NULLABLE", "CASE_SENSITIVE", "SEARCHABLE",
                 "UNSIGNED_ATTRIBUTE", "FIXED_PREC_SCALE", "AUTO_INCREMENT", "LOCAL_TYPE_NAME", "MINIMUM_SCALE",
                 "MAXIMUM_SCALE", "SQL_DATA_TYPE", "SQL_DATETIME_SUB", "NUM_PREC_RADIX" });
-
-        retVal.addRow(new String[] { OBJECT_ID_TYPE_NAME, // "TYPE_NAME",
-                "" + Types.VARCHAR, // "DATA_TYPE",
-                "800", // "PRECISION",
+        retVal.setColumnTypes(Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.VARCHAR,
+                Types.VARCHAR, Types.VARCHAR, Types.SMALLINT, Types.BOOLEAN, Types.SMALLINT,
+                Types.BOOLEAN, Types.BOOLEAN, Types.BOOLEAN, Types.VARCHAR, Types.SMALLINT,
+                Types.SMALLINT, Types.INTEGER, Types.INTEGER, Types.INTEGER);
+
+        retVal.addRow(new Object[] { OBJECT_ID_TYPE_NAME, // "TYPE_NAME",
+                Types.VARCHAR, // "DATA_TYPE",
+                800, // "PRECISION",
                 "'", // "LITERAL_PREFIX",
                 "'", // "LITERAL_SUFFIX",
                 null, // "CREATE_PARAMS",
-                "" + typeNullable, // "NULLABLE",
-                "true", // "CASE_SENSITIVE",
-                "" + typeSearchable, // "SEARCHABLE",
-                "false", // "UNSIGNED_ATTRIBUTE",
-                "false", // "FIXED_PREC_SCALE",
-                "false", // "AUTO_INCREMENT",
+                typeNullable, // "NULLABLE",
+                true, // "CASE_SENSITIVE",
+                typeSearchable, // "SEARCHABLE",
+                false, // "UNSIGNED_ATTRIBUTE",
+                false, // "FIXED_PREC_SCALE",
+                false, // "AUTO_INCREMENT",
                 OBJECT_ID_TYPE_NAME, // "LOCAL_TYPE_NAME",
-                "0", // "MINIMUM_SCALE",
-                "0", // "MAXIMUM_SCALE",
+                0, // "MINIMUM_SCALE",
+                0, // "MAXIMUM_SCALE",
                 null, // "SQL_DATA_TYPE", (not used)
                 null, // "SQL_DATETIME_SUB", (not used)
-                "10", // "NUM_PREC_RADIX" (javadoc says usually 2 or 10)
+                10, // "NUM_PREC_RADIX" (javadoc says usually 2 or 10)
         });
 
-        retVal.addRow(new String[] { DOCUMENT_TYPE_NAME, // "TYPE_NAME",
-                "" + Types.CLOB, // "DATA_TYPE",
-                "16777216", // "PRECISION",
+        retVal.addRow(new Object[] { DOCUMENT_TYPE_NAME, // "TYPE_NAME",
+                Types.CLOB, // "DATA_TYPE",
+                16777216, // "PRECISION",
                 "'", // "LITERAL_PREFIX",
                 "'", // "LITERAL_SUFFIX",
                 null, // "CREATE_PARAMS",
-                "" + typeNullable, // "NULLABLE",
-                "true", // "CASE_SENSITIVE",
-                "" + typeSearchable, // "SEARCHABLE",
-                "false", // "UNSIGNED_ATTRIBUTE",
-                "false", // "FIXED_PREC_SCALE",
-                "false", // "AUTO_INCREMENT",
+                typeNullable, // "NULLABLE",
+                true, // "CASE_SENSITIVE",
+                typeSearchable, // "SEARCHABLE",
+                false, // "UNSIGNED_ATTRIBUTE",
+                false, // "FIXED_PREC_SCALE",
+                false, // "AUTO_INCREMENT",
                 DOCUMENT_TYPE_NAME, // "LOCAL_TYPE_NAME",
-                "0", // "MINIMUM_SCALE",
-                "0", // "MAXIMUM_SCALE",
+                0, // "MINIMUM_SCALE",
+                0, // "MAXIMUM_SCALE",
                 null, // "SQL_DATA_TYPE", (not used)
                 null, // "SQL_DATETIME_SUB", (not used)
-                "10", // "NUM_PREC_RADIX" (javadoc says usually 2 or 10)
+                10, // "NUM_PREC_RADIX" (javadoc says usually 2 or 10)
         });
         return retVal;
     }
@@ -1259,6 +1276,8 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         ArrayResultSet result = new ArrayResultSet();
         result.setColumnNames(new String[]{"PKTABLE_CAT", "PKTABLE_SCHEMA", "PKTABLE_NAME", "PKCOLUMN_NAME", "FKTABLE_CAT", "FKTABLE_SCHEM",
                 "FKTABLE_NAME", "FKCOLUMN_NAME", "KEY_SEQ", "UPDATE_RULE", "DELETE_RULE", "FK_NAME", "PK_NAME", "DEFERRABILITY"});
+        result.setColumnTypes(Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.VARCHAR, Types.VARCHAR, Types.SMALLINT, Types.SMALLINT, Types.SMALLINT, Types.VARCHAR, Types.VARCHAR, Types.SMALLINT);
 
         WrappedMongoDatabase db = con.client.getDatabase(catalogName);
         db.metaDatabase.discoverReferences( db );
@@ -1277,7 +1296,7 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         for ( MetaReference iReference : fromFiled.references){
             if ( iReference.pkCollection == pkCollection ){
 
-                result.addRow(new String[] {
+                result.addRow(new Object[] {
                         pkCollection.metaDatabase.name, //PKTABLE_CAT
                         null, //PKTABLE_SCHEM
                         pkCollection.name,//PKTABLE_NAME
@@ -1286,12 +1305,12 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
                         null, //FKTABLE_SCHEM
                         fromFiled.getMetaCollection().name, //FKTABLE_NAME
                         iReference.fromField.getNameWithPath(),//FKCOLUMN_NAME
-                        "1",//KEY_SEQ 1,2
-                        ""+ DatabaseMetaData.importedKeyNoAction, //UPDATE_RULE
-                        ""+DatabaseMetaData.importedKeyNoAction, //DELETE_RULE
+                        1,//KEY_SEQ 1,2
+                        DatabaseMetaData.importedKeyNoAction, //UPDATE_RULE
+                        DatabaseMetaData.importedKeyNoAction, //DELETE_RULE
                         "Relationship", //FK_NAME
                         null, //PK_NAME
-                        ""+DatabaseMetaData.importedKeyInitiallyImmediate //DEFERRABILITY
+                        DatabaseMetaData.importedKeyInitiallyImmediate //DEFERRABILITY
                 });
             }
         }
@@ -1311,6 +1330,8 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         ArrayResultSet result = new ArrayResultSet();
         result.setColumnNames(new String[]{"PKTABLE_CAT", "PKTABLE_SCHEM", "PKTABLE_NAME", "PKCOLUMN_NAME", "FKTABLE_CAT", "FKTABLE_SCHEM",
                 "FKTABLE_NAME", "FKCOLUMN_NAME", "KEY_SEQ", "UPDATE_RULE", "DELETE_RULE", "FK_NAME", "PK_NAME", "DEFERRABILITY"});
+        result.setColumnTypes(Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.VARCHAR, Types.VARCHAR, Types.SMALLINT, Types.SMALLINT, Types.SMALLINT, Types.VARCHAR, Types.VARCHAR, Types.SMALLINT);
 
 
         WrappedMongoDatabase db = con.client.getDatabase(catalogName);
@@ -1327,7 +1348,7 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
     private void getImportedKeysRecursive(ArrayResultSet result, MetaField fromFiled) {
         for ( MetaReference reference : fromFiled.references ){
 
-            result.addRow(new String[] {
+            result.addRow(new Object[] {
                     reference.pkCollection.metaDatabase.name, //PKTABLE_CAT
                     null, //PKTABLE_SCHEMA
                     reference.pkCollection.name,//PKTABLE_NAME
@@ -1336,12 +1357,12 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
                     null, //FKTABLE_SCHEM
                     reference.fromField.getMetaCollection().name, //FKTABLE_NAME
                     reference.fromField.getNameWithPath(),//FKCOLUMN_NAME
-                    "1",//KEY_SEQ 1,2
-                    ""+ DatabaseMetaData.importedKeyNoAction, //UPDATE_RULE
-                    ""+DatabaseMetaData.importedKeyNoAction, //DELETE_RULE
+                    1,//KEY_SEQ 1,2
+                    DatabaseMetaData.importedKeyNoAction, //UPDATE_RULE
+                    DatabaseMetaData.importedKeyNoAction, //DELETE_RULE
                     "Relationship", //FK_NAME
                     null, //PK_NAME
-                    ""+DatabaseMetaData.importedKeyInitiallyImmediate //DEFERRABILITY
+                    DatabaseMetaData.importedKeyInitiallyImmediate //DEFERRABILITY
             });
         }
         if ( fromFiled instanceof MetaObject){
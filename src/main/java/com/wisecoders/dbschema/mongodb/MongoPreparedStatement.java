@@ -1,27 +1,44 @@
 
 package com.wisecoders.dbschema.mongodb;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.AggregateIterable;
-import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.*;
 import com.wisecoders.dbschema.mongodb.resultSet.ArrayResultSet;
 import com.wisecoders.dbschema.mongodb.resultSet.ObjectAsResultSet;
 import com.wisecoders.dbschema.mongodb.resultSet.OkResultSet;
 import com.wisecoders.dbschema.mongodb.resultSet.ResultSetIterator;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedFindIterable;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoClient;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoDatabase;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.Decimal128;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
 
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -39,26 +56,71 @@ public class MongoPreparedStatement implements PreparedStatement {
     private ResultSet lastResultSet;
     private boolean isClosed = false;
     private int maxRows = -1;
+    private int fetchSize = 0;
+    private int queryTimeout = 0;
+
+    // STATE OF THE RUNNING EXECUTION, USED BY cancel() AND BY THE QUERY TIMEOUT FROM OTHER THREADS
+    private volatile Context runningContext;
+    private volatile String runningOperation;
+    private volatile boolean timedOut = false;
+
+    // SCRIPTS GET THIS TIME TO STOP AFTER THE INTERRUPT, BEFORE THE CONTEXT IS CLOSED
+    private static final Duration INTERRUPT_WAIT = Duration.ofSeconds( 5 );
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor( runnable -> {
+        final Thread thread = new Thread( runnable, "MongoJdbc-QueryTimeout");
+        thread.setDaemon( true );
+        return thread;
+    });
     private final String query;
+    private final PreparedQuery preparedQuery;
+    private final Object[] parameters;
 
     MongoPreparedStatement(final MongoConnection connection) {
         this.connection = connection;
         this.query = null;
+        this.preparedQuery = null;
+        this.parameters = new Object[0];
     }
 
     MongoPreparedStatement(final MongoConnection connection, String query) {
         this.connection = connection;
         this.query = query;
+        // THE QUERY IS PARSED ONCE HERE. EACH EXECUTION IS ONLY SETTING THE PARAMETER VALUES.
+        this.preparedQuery = query != null ? new PreparedQuery( query, true ) : null;
+        this.parameters = new Object[ preparedQuery != null ? preparedQuery.parameterCount : 0 ];
     }
 
     @Override
-    public <T> T unwrap(final Class<T> iface) {
-        return null;
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if ( iface.isInstance( this )){
+            return iface.cast( this );
+        }
+        throw new SQLException("Cannot unwrap to " + iface.getName() );
     }
 
     @Override
     public boolean isWrapperFor(final Class<?> iface) {
-        return false;
+        return iface.isInstance( this );
+    }
+
+    private List<String> columns = new ArrayList<>();
+
+    /**
+     * Fetch only these fields from the server. They are set as projection to find() and as $project stage to
+     * aggregate() statements executed without JavaScript, if the query has no own projection.
+     * Use it with expand=true, when the application reads only some columns:
+     * <pre>
+     * statement.unwrap( MongoPreparedStatement.class ).setColumns("name", "address.city");
+     * </pre>
+     * Call it without arguments to fetch again the complete documents.
+     */
+    public void setColumns( String... columns ) throws SQLException {
+        checkClosed();
+        this.columns = new ArrayList<>( Arrays.asList( columns ));
+    }
+
+    public List<String> getColumns(){
+        return columns;
     }
 
 
@@ -75,6 +137,10 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public ResultSet executeQuery(String query) throws SQLException	{
+        return executeQuery( query, null, null );
+    }
+
+    private ResultSet executeQuery(String query, PreparedQuery preparedQuery, Object[] parameters ) throws SQLException	{
         checkClosed();
         LOGGER.log(Level.INFO, "Execute " + query );
         if (lastResultSet != null ) {
@@ -122,51 +188,147 @@ public class MongoPreparedStatement implements PreparedStatement {
                 return lastResultSet = result;
             } else if ( PATTERN_SHOW_USERS.matcher( plainQuery ).matches()){
                 query = "db.runCommand(\"{usersInfo:'" + connection.getCatalog() + "'}\")";
+                preparedQuery = null;
             } else if ( PATTERN_SHOW_PROFILES.matcher( plainQuery ).matches() || PATTERN_SHOW_RULES.matcher( plainQuery ).matches() ){
                 throw new SQLException("Not yet implemented in this driver.");
             } else {
                 throw new SQLException("Invalid command : " + plainQuery);
             }
         }
+        if ( preparedQuery == null ){
+            preparedQuery = new PreparedQuery( query, false );
+        }
+        // THE OPERATIONS ARE TAGGED WITH THIS COMMENT, SO cancel() CAN FIND AND KILL THEM ON THE SERVER
+        runningOperation = "MongoJdbc-" + UUID.randomUUID();
+        timedOut = false;
+        final ScheduledFuture<?> timeoutTask = queryTimeout > 0 ? TIMEOUT_SCHEDULER.schedule( this::timeout, queryTimeout, TimeUnit.SECONDS ) : null;
         try {
+            // COMMON find(), aggregate() AND count() STATEMENTS ARE EXECUTED WITHOUT THE JAVASCRIPT ENGINE
+            final FastPathQuery fastPathQuery = preparedQuery.getFastPathQuery( parameters );
+            if ( fastPathQuery != null ){
+                final Object result = fastPathQuery.execute( connection, maxRows, queryTimeout, columns );
+                if ( result != null ){
+                    return lastResultSet = createResultSet( result );
+                }
+            }
             final Context context = connection.createContext();
-            boolean dbIsSet = false;
+            runningContext = context;
             Value bindings = context.getBindings("js");
-            for ( WrappedMongoDatabase db : connection.getDatabases() ){
-                bindings.putMember(db.getName(), db );
-                if ( connection.getCatalog() != null && connection.getCatalog().equals(db.getName())){
-                    bindings.putMember("db", db);
-                    dbIsSet = true;
+            // DATABASES ARE RESOLVED BY THE SCOPE ONLY WHEN THE SCRIPT IS USING THEM
+            bindings.putMember("__databases", connection.client.getDatabaseScope());
+            if ( !bindings.getMember("__lazyDatabases").asBoolean() ){
+                for ( WrappedMongoDatabase db : connection.getDatabases() ){
+                    bindings.putMember(db.getName(), db );
                 }
             }
-            if ( !dbIsSet ){
+            if ( connection.getCatalog() != null && connection.getDatabaseNames().contains( connection.getCatalog() )){
+                bindings.putMember("db", connection.getDatabase( connection.getCatalog() ));
+            } else {
                 bindings.putMember("db", connection.getDatabase("admin"));
             }
             bindings.putMember("client", connection);
-            final String initScript = Util.readStringFromInputStream(MongoPreparedStatement.class.getResourceAsStream("init.js"));
-            context.eval("js", initScript);
+            if ( preparedQuery.parameterCount > 0 ){
+                bindings.putMember( PreparedQuery.PARAMETERS_BINDING, ProxyArray.fromArray( parameters ));
+            }
 
-            Value value = context.eval( "js", query );
+            Value value = context.eval( connection.getScriptCache().getSource( preparedQuery.script ) );
             Object obj = value;
             if ( value.isHostObject() ) {
                 obj = value.asHostObject();
             }
-            if (obj instanceof AggregateIterable) {
-                lastResultSet = new ResultSetIterator(((AggregateIterable) obj).allowDiskUse(true).iterator(), connection.client.expandResultSet);
-            } else if (obj instanceof Iterable) {
-                lastResultSet = new ResultSetIterator(((Iterable) obj).iterator(), connection.client.expandResultSet);
-            } else if (obj instanceof Iterator) {
-                lastResultSet = new ResultSetIterator((Iterator) obj, connection.client.expandResultSet);
-            } else if (obj instanceof WrappedMongoCollection) {
-                lastResultSet = new ResultSetIterator(((WrappedMongoCollection) obj).find(), connection.client.expandResultSet);
-            } else if (obj != null) {
-                lastResultSet = new ObjectAsResultSet(obj);
-            }
-            return lastResultSet;
+            return lastResultSet = createResultSet( obj );
         } catch ( Throwable ex ){
+            if ( ex instanceof PolyglotException && ((PolyglotException)ex).isCancelled() ){
+                // THE CONTEXT WAS CLOSED BECAUSE THE SCRIPT DID NOT STOP AFTER INTERRUPT
+                connection.discardContext();
+            }
+            if ( timedOut || ex instanceof MongoExecutionTimeoutException ){
+                LOGGER.log(Level.WARNING, "Query timeout exceeded: " + query );
+                throw new SQLTimeoutException( "Query timeout of " + queryTimeout + " seconds exceeded.", ex );
+            }
             LOGGER.log(Level.SEVERE, "Error executing: " + query, ex );
             throw new SQLException( ex.getMessage(), ex );
+        } finally {
+            if ( timeoutTask != null ){
+                timeoutTask.cancel( false );
+            }
+            runningContext = null;
+            runningOperation = null;
+        }
+    }
+
+    private void timeout(){
+        timedOut = true;
+        stopRunningExecution();
+    }
+
+    /**
+     * Called from another thread. The server operation is killed and the script is interrupted.
+     */
+    private void stopRunningExecution(){
+        final String operation = runningOperation;
+        if ( operation != null ){
+            try {
+                connection.client.killOperations( operation );
+            } catch ( Throwable ex ){
+                LOGGER.log(Level.WARNING, "Cannot kill the server operation. " + ex.getMessage() );
+            }
+        }
+        final Context context = runningContext;
+        if ( context != null ){
+            try {
+                context.interrupt( INTERRUPT_WAIT );
+            } catch ( TimeoutException ex ){
+                context.close( true );
+            } catch ( Throwable ex ){
+                LOGGER.log(Level.WARNING, "Cannot interrupt the script. " + ex.getMessage() );
+            }
+        }
+    }
+
+    private ResultSet createResultSet( Object obj ){
+        if ( obj instanceof WrappedMongoCollection ){
+            WrappedMongoCollection collection = (WrappedMongoCollection) obj;
+            if ( connection.client.rawDocuments ){
+                collection = collection.withDocumentClass( RawBsonDocument.class );
+            }
+            obj = collection.find();
+        }
+        // MAX ROWS IS SENT TO THE SERVER AS limit(). AN AGGREGATE PIPELINE CANNOT BE CHANGED AFTER IT IS CREATED BY THE SCRIPT,
+        // SO WE REQUEST ONLY ONE BATCH OF maxRows DOCUMENTS AND THE RESULT SET CLOSES THE CURSOR AFTER maxRows.
+        final String operation = runningOperation;
+        if ( obj instanceof WrappedFindIterable ){
+            if ( queryTimeout > 0 ) ((WrappedFindIterable) obj).maxTime( queryTimeout, TimeUnit.SECONDS );
+            if ( operation != null ) ((WrappedFindIterable) obj).comment( operation );
+        } else if ( obj instanceof AggregateIterable ){
+            if ( queryTimeout > 0 ) ((AggregateIterable) obj).maxTime( queryTimeout, TimeUnit.SECONDS );
+            if ( operation != null ) ((AggregateIterable) obj).comment( operation );
+        }
+        if ( obj instanceof WrappedFindIterable ){
+            ((WrappedFindIterable) obj).applyColumns( columns );
+        }
+        int batchSize = fetchSize;
+        if ( maxRows > 0 ){
+            if ( obj instanceof WrappedFindIterable ){
+                ((WrappedFindIterable) obj).applyMaxRows( maxRows );
+            } else if ( obj instanceof AggregateIterable && ( batchSize == 0 || batchSize > maxRows )){
+                batchSize = maxRows;
+            }
+        }
+        // THE FETCH SIZE IS USED AS CURSOR BATCH SIZE. THE RESULT SET IS READING THE DOCUMENTS ONE BY ONE FROM THE CURSOR.
+        if ( batchSize > 0 && obj instanceof MongoIterable ){
+            ((MongoIterable) obj).batchSize( batchSize );
+        }
+        if (obj instanceof AggregateIterable) {
+            return new ResultSetIterator(((AggregateIterable) obj).allowDiskUse(true).iterator(), connection.client.expandResultSet, maxRows, connection.client.maxReadAhead );
+        } else if (obj instanceof Iterable) {
+            return new ResultSetIterator(((Iterable) obj).iterator(), connection.client.expandResultSet, maxRows, connection.client.maxReadAhead );
+        } else if (obj instanceof Iterator) {
+            return new ResultSetIterator((Iterator) obj, connection.client.expandResultSet, maxRows, connection.client.maxReadAhead );
+        } else if (obj != null) {
+            return new ObjectAsResultSet(obj);
         }
+        return null;
     }
 
     public StringBuilder debug( Document doc, String prefix, StringBuilder out ){
@@ -201,34 +363,66 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     private Document documentParam;
 
+    private boolean hasParameters(){
+        return parameters.length > 0;
+    }
+
+    private void setParameter( int parameterIndex, Object x ) throws SQLException {
+        checkClosed();
+        if ( parameterIndex < 1 || parameterIndex > parameters.length ){
+            throw new SQLException("Parameter index " + parameterIndex + " out of range. The statement has " + parameters.length + " '?' parameters.");
+        }
+        parameters[ parameterIndex - 1 ] = x;
+    }
+
     @Override
     public void setObject(int parameterIndex, Object x) throws SQLException {
+        if ( hasParameters() ){
+            setParameter( parameterIndex, toParameterValue( x ));
+            return;
+        }
+        // STATEMENTS WITHOUT PLACEHOLDERS ARE USING THE DOCUMENT IN executeUpdate()
         if ( x instanceof Document ){
             documentParam = (Document)x;
         } else if ( x instanceof Map ){
             documentParam = new Document( (Map)x);
-        } else if (x == null) {
-            throw new SQLException("Map object expected. You currently did setObject( NULL ) ");
         } else {
-            throw new SQLException("Map object expected. You currently did setObject( " + x.getClass().getName() + " ) ");
+            if (x == null) {
+                throw new SQLException("Map object expected. You currently did setObject( NULL ) ");
+            } else {
+                throw new SQLException("Map object expected. You currently did setObject( " + x.getClass().getName() + " ) ");
+            }
         }
     }
 
+    private static Object toParameterValue( Object x ){
+        if ( x instanceof Byte || x instanceof Short ) return ((Number)x).intValue();
+        if ( x instanceof Float ) return ((Float)x).doubleValue();
+        if ( x instanceof BigDecimal ) return new Decimal128( (BigDecimal)x );
+        if ( x instanceof java.util.Date ) return new java.util.Date( ((java.util.Date)x).getTime() );
+        if ( x instanceof URL ) return x.toString();
+        return x;
+    }
+
     @Override
     public int executeUpdate() throws SQLException {
+        if ( hasParameters() ){
+            executeQuery( query, preparedQuery, parameters );
+            return 1;
+        }
         return executeUpdate(query);
     }
 
     private WrappedMongoDatabase getDatabase(String name){
-        for ( WrappedMongoDatabase scan : connection.getDatabases() ){
-            if ( scan.getName().equalsIgnoreCase( name )){
-                return scan;
+        for ( String dbName : connection.getDatabaseNames() ){
+            if ( dbName.equalsIgnoreCase( name )){
+                return connection.getDatabase( dbName );
             }
         }
         if ( "db".equals( name ) && connection.getCatalog() != null ){
-            for ( WrappedMongoDatabase scan : connection.getDatabases() ){
-                if ( scan.getName().equalsIgnoreCase( connection.getCatalog() )){
-                    return scan;
+            for ( String dbName : connection.getDatabaseNames() ){
+                if ( dbName.equalsIgnoreCase( connection.getCatalog() )){
+                    return connection.getDatabase( dbName );
                 }
             }
         }
@@ -324,8 +518,12 @@ public class MongoPreparedStatement implements PreparedStatement {
     }
 
     @Override
-    public void setMaxRows(final int max)
+    public void setMaxRows(final int max) throws SQLException
     {
+        checkClosed();
+        if ( max < 0 ){
+            throw new SQLException("Max rows should be a positive number.");
+        }
         this.maxRows = max;
     }
 
@@ -335,20 +533,33 @@ public class MongoPreparedStatement implements PreparedStatement {
     @Override
     public int getQueryTimeout() throws SQLException {
         checkClosed();
-        // throw new SQLFeatureNotSupportedException("MongoDB provides no support for query timeouts.");
-        return Integer.MAX_VALUE;
+        return queryTimeout;
     }
 
+    /**
+     * The timeout is sent to the server as maxTimeMS for find(), aggregate() and count().
+     * Scripts still running after the timeout are interrupted, and the server operations they started are killed.
+     */
     @Override
     public void setQueryTimeout(final int seconds) throws SQLException {
         checkClosed();
-        // throw new SQLFeatureNotSupportedException("MongoDB provides no support for query timeouts.");
+        if ( seconds < 0 ){
+            throw new SQLException("Query timeout should be a positive number.");
+        }
+        this.queryTimeout = seconds;
     }
 
+    /**
+     * Stop the statement from another thread: kill the server operation, interrupt the script and close the open cursor.
+     */
     @Override
     public void cancel() throws SQLException {
         checkClosed();
-        // throw new SQLFeatureNotSupportedException("MongoDB provides no support for interrupting an operation.");
+        stopRunningExecution();
+        final ResultSet resultSet = lastResultSet;
+        if ( resultSet != null ){
+            resultSet.close();
+        }
     }
 
     @Override
@@ -394,11 +605,17 @@ public class MongoPreparedStatement implements PreparedStatement {
     }
 
     @Override
-    public void setFetchSize(final int rows) throws SQLException{}
+    public void setFetchSize(final int rows) throws SQLException{
+        checkClosed();
+        if ( rows < 0 ){
+            throw new SQLException("Fetch size should be a positive number.");
+        }
+        this.fetchSize = rows;
+    }
 
     @Override
     public int getFetchSize() throws SQLException {
-        return 0;
+        return fetchSize;
     }
 
     @Override
@@ -411,18 +628,186 @@ public class MongoPreparedStatement implements PreparedStatement {
         return 0;
     }
 
+    /**
+     * One statement added with addBatch(). UPDATE and DELETE FROM statements with a document parameter are kept as
+     * write models, sent with bulkWrite() to their collection. Other statements are kept as script with the parameter values.
+     */
+    private static class BatchEntry {
+        final WrappedMongoCollection collection;
+        final WriteModel<Document> writeModel;
+        final String query;
+        final PreparedQuery preparedQuery;
+        final Object[] parameters;
+
+        BatchEntry( WrappedMongoCollection collection, WriteModel<Document> writeModel ){
+            this.collection = collection;
+            this.writeModel = writeModel;
+            this.query = null;
+            this.preparedQuery = null;
+            this.parameters = null;
+        }
+
+        BatchEntry( String query, PreparedQuery preparedQuery, Object[] parameters ){
+            this.collection = null;
+            this.writeModel = null;
+            this.query = query;
+            this.preparedQuery = preparedQuery;
+            this.parameters = parameters;
+        }
+    }
+
+    private final List<BatchEntry> batch = new ArrayList<>();
+
+    private BatchEntry createBatchEntry( String sql, PreparedQuery preparedQuery, Object[] parameters ) throws SQLException {
+        if ( sql == null ) throw new SQLException( ERROR_MESSAGE );
+        // STATEMENTS WITH PLACEHOLDERS ARE EXECUTED AS SCRIPTS, LIKE IN executeUpdate()
+        if ( hasParameters() || documentParam == null ){
+            return new BatchEntry( sql, preparedQuery, parameters != null ? parameters.clone() : null );
+        }
+        sql = sql.trim();
+        // THE DOCUMENT IS COPIED, SO THE APPLICATION CAN REUSE THE SAME MAP FOR THE NEXT ROW
+        final Document document = new Document( GraalConvertor.convertMap( new LinkedHashMap<>( documentParam )));
+        final Object id = document.get("_id");
+        Matcher matcher = PATTERN_UPDATE.matcher( sql );
+        if ( matcher.matches() ){
+            final WrappedMongoCollection collection = getCollectionMandatory(matcher.group(1), true);
+            if ( id == null ){
+                return new BatchEntry( collection, new InsertOneModel<>( document ));
+            }
+            return new BatchEntry( collection, new ReplaceOneModel<>( new Document("_id", id), document, new ReplaceOptions().upsert(true)));
+        }
+        matcher = PATTERN_DELETE.matcher( sql );
+        if ( matcher.matches() ){
+            final WrappedMongoCollection collection = getCollectionMandatory(matcher.group(1), false);
+            return new BatchEntry( collection, new DeleteOneModel<>( new Document("_id", id)));
+        }
+        throw new SQLException( ERROR_MESSAGE );
+    }
+
     @Override
     public void addBatch(final String sql) throws SQLException{
-        executeUpdate(sql);
+        checkClosed();
+        batch.add( createBatchEntry( sql, null, null ));
     }
 
     @Override
-    public void clearBatch() throws SQLException{}
+    public void clearBatch() throws SQLException{
+        batch.clear();
+    }
 
+    /**
+     * Consecutive write models on the same collection are sent with bulkWrite(), in chunks of maximum batchSize models.
+     * The batch order is kept: the pending write models are sent before executing a script or writing into another collection.
+     * With orderedBatch=false in the URL the server may apply the writes of one bulkWrite() in any order and continues after errors.
+     * An unordered batch executes all entries, then throws one BatchUpdateException with the failed entries marked as EXECUTE_FAILED.
+     */
     @Override
     public int[] executeBatch() throws SQLException	{
         checkClosed();
-        return null;
+        final int[] counts = new int[ batch.size() ];
+        Arrays.fill( counts, EXECUTE_FAILED );
+        final List<Integer> pendingWrites = new ArrayList<>();
+        Throwable failure = null;
+        try {
+            for ( int i = 0; i < batch.size(); i++ ){
+                final BatchEntry entry = batch.get( i );
+                if ( entry.writeModel != null ){
+                    if ( !pendingWrites.isEmpty() && !batch.get( pendingWrites.get(0) ).collection.toString().equals( entry.collection.toString() )){
+                        failure = firstFailure( failure, flushWrites( pendingWrites, counts ));
+                    }
+                    pendingWrites.add( i );
+                } else {
+                    failure = firstFailure( failure, flushWrites( pendingWrites, counts ));
+                    if ( connection.client.orderedBatch ){
+                        executeQuery( entry.query, entry.preparedQuery, entry.parameters );
+                        counts[i] = SUCCESS_NO_INFO;
+                    } else {
+                        try {
+                            executeQuery( entry.query, entry.preparedQuery, entry.parameters );
+                            counts[i] = SUCCESS_NO_INFO;
+                        } catch ( Throwable ex ){
+                            LOGGER.log(Level.SEVERE, "Error executing batch", ex );
+                            failure = firstFailure( failure, ex );
+                        }
+                    }
+                }
+            }
+            failure = firstFailure( failure, flushWrites( pendingWrites, counts ));
+            if ( failure != null ){
+                throw new BatchUpdateException( failure.getMessage(), counts, failure );
+            }
+        } catch ( BatchUpdateException ex ){
+            throw ex;
+        } catch ( Throwable ex ){
+            LOGGER.log(Level.SEVERE, "Error executing batch", ex );
+            throw new BatchUpdateException( ex.getMessage(), counts, ex );
+        } finally {
+            batch.clear();
+        }
+        return counts;
+    }
+
+    private static Throwable firstFailure( Throwable failure, Throwable next ){
+        return failure != null ? failure : next;
+    }
+
+    /**
+     * Send the pending write models. They are all on the same collection.
+     * An ordered batch stops at the first error. An unordered batch sends all chunks.
+     * @return the first error of an unordered batch, or null.
+     */
+    private MongoBulkWriteException flushWrites( List<Integer> pendingWrites, int[] counts ) throws BatchUpdateException {
+        MongoBulkWriteException failure = null;
+        if ( !pendingWrites.isEmpty() ){
+            final int maxBatchSize = Math.max( 1, connection.client.maxBatchSize );
+            final BulkWriteOptions options = new BulkWriteOptions().ordered( connection.client.orderedBatch );
+            final WrappedMongoCollection collection = batch.get( pendingWrites.get(0) ).collection;
+            for ( int start = 0; start < pendingWrites.size(); start += maxBatchSize ){
+                final List<Integer> chunk = pendingWrites.subList( start, Math.min( pendingWrites.size(), start + maxBatchSize ));
+                final List<WriteModel<Document>> models = new ArrayList<>( chunk.size() );
+                for ( int idx : chunk ){
+                    models.add( batch.get( idx ).writeModel );
+                }
+                try {
+                    setUpdateCounts( collection.bulkWrite( models, options ), chunk, counts );
+                } catch ( MongoBulkWriteException ex ){
+                    setUpdateCounts( ex.getWriteResult(), chunk, counts );
+                    for ( BulkWriteError error : ex.getWriteErrors() ){
+                        counts[ chunk.get( error.getIndex() ) ] = EXECUTE_FAILED;
+                    }
+                    if ( connection.client.orderedBatch && !ex.getWriteErrors().isEmpty() ){
+                        // THE SERVER STOPS AT THE FIRST ERROR
+                        for ( int i = ex.getWriteErrors().get(0).getIndex(); i < chunk.size(); i++ ){
+                            counts[ chunk.get( i ) ] = EXECUTE_FAILED;
+                        }
+                    }
+                    LOGGER.log(Level.SEVERE, "Error executing batch", ex );
+                    if ( connection.client.orderedBatch ){
+                        throw new BatchUpdateException( ex.getMessage(), counts, ex );
+                    }
+                    // THE FAILED WRITES ARE MARKED IN counts, THE NEXT CHUNKS ARE SENT
+                    if ( failure == null ) failure = ex;
+                }
+            }
+        }
+        pendingWrites.clear();
+        return failure;
+    }
+
+    private void setUpdateCounts( BulkWriteResult result, List<Integer> chunk, int[] counts ){
+        int deletes = 0;
+        for ( int idx : chunk ){
+            if ( batch.get( idx ).writeModel instanceof DeleteOneModel ) deletes++;
+        }
+        // THE SERVER RETURNS ONLY THE TOTAL NUMBER OF DELETED DOCUMENTS, SO THE COUNT OF EACH DELETE IS KNOWN ONLY IF ALL OR NONE MATCHED
+        int deleteCount = SUCCESS_NO_INFO;
+        if ( result.wasAcknowledged() ){
+            if ( result.getDeletedCount() == deletes ) deleteCount = 1;
+            else if ( result.getDeletedCount() == 0 ) deleteCount = 0;
+        }
+        for ( int idx : chunk ){
+            counts[ idx ] = batch.get( idx ).writeModel instanceof DeleteOneModel ? deleteCount : 1;
+        }
     }
 
     @Override
@@ -521,77 +906,77 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public ResultSet executeQuery() throws SQLException {
-        execute(query);
-        return lastResultSet;
+        return executeQuery( query, preparedQuery, parameters );
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
-
+        setParameter( parameterIndex, null );
     }
 
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
-
+        setParameter( parameterIndex, (int)x );
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
-
+        setParameter( parameterIndex, (int)x );
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
-
+        setParameter( parameterIndex, (double)x );
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setDate(int parameterIndex, Date x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTime(int parameterIndex, Time x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
@@ -608,21 +993,26 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void clearParameters() throws SQLException {
+        Arrays.fill( parameters, null );
+        documentParam = null;
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        setObject( parameterIndex, x );
     }
 
 
     @Override
     public boolean execute() throws SQLException {
-        return false;
+        executeQuery( query, preparedQuery, parameters );
+        return lastResultSet != null;
     }
 
     @Override
     public void addBatch() throws SQLException {
-        executeUpdate();
+        checkClosed();
+        batch.add( createBatchEntry( query, preparedQuery, parameters ));
     }
 
     @Override
@@ -657,27 +1047,27 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
-
+        setParameter( parameterIndex, null );
     }
 
     @Override
     public void setURL(int parameterIndex, URL x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
@@ -692,7 +1082,7 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void setNString(int parameterIndex, String value) throws SQLException {
-
+        setParameter( parameterIndex, value );
     }
 
     @Override
@@ -727,7 +1117,7 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
-
+        setObject( parameterIndex, x );
     }
 
     @Override
@@ -0,0 +1,103 @@
+package com.wisecoders.dbschema.mongodb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statement text parsed once, when the statement is prepared.
+ * The '?' placeholders are replaced in the JavaScript text with __params[i], so the script text stays the same
+ * between executions and the parsed source is reused from the ScriptCache. For find(), aggregate() and count()
+ * statements the arguments are parsed once into documents, and only the parameter values are set on each execution.
+ * A '?' is a placeholder only where a value is expected, like in find({name: ?}). Other '?', like in 'a ? b : c', are left as they are.
+ * Strings, comments and regular expression literals like /ab?c/ are skipped.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+class PreparedQuery {
+
+    static final String PARAMETERS_BINDING = "__params";
+
+    final String query;
+    final String script;
+    final int parameterCount;
+    private final FastPathQuery fastPathQuery;
+
+    PreparedQuery( String query, boolean withPlaceholders ){
+        this.query = query;
+        final List<Integer> placeholders = withPlaceholders ? findPlaceholders( query ) : new ArrayList<>();
+        this.parameterCount = placeholders.size();
+        if ( parameterCount == 0 ){
+            this.script = query;
+            this.fastPathQuery = FastPathQuery.parse( query );
+        } else {
+            final StringBuilder sbScript = new StringBuilder(), sbFastPath = new StringBuilder();
+            int last = 0;
+            for ( int i = 0; i < parameterCount; i++ ){
+                final int pos = placeholders.get(i);
+                sbScript.append( query, last, pos ).append( PARAMETERS_BINDING ).append('[').append( i ).append(']');
+                sbFastPath.append( query, last, pos ).append( FastPathQuery.parameterLiteral( i ));
+                last = pos + 1;
+            }
+            sbScript.append( query.substring( last ));
+            sbFastPath.append( query.substring( last ));
+            this.script = sbScript.toString();
+            this.fastPathQuery = FastPathQuery.parse( sbFastPath.toString() );
+        }
+    }
+
+    /**
+     * @return the fast path statement with the parameter values set, or null if the statement requires the JavaScript engine.
+     */
+    FastPathQuery getFastPathQuery( Object[] parameters ){
+        return fastPathQuery != null ? fastPathQuery.bind( parameters ) : null;
+    }
+
+    private static List<Integer> findPlaceholders( String query ){
+        final List<Integer> placeholders = new ArrayList<>();
+        final int len = query.length();
+        int i = 0;
+        while ( i < len ){
+            final char c = query.charAt( i );
+            if ( c == '"' || c == '\'' || c == '`' ){
+                i++;
+                while ( i < len && query.charAt( i ) != c ){
+                    if ( query.charAt( i ) == '\\' ) i++;
+                    i++;
+                }
+            } else if ( c == '/' && i + 1 < len && query.charAt( i + 1 ) == '/' ){
+                while ( i < len && query.charAt( i ) != '\n' ) i++;
+            } else if ( c == '/' && i + 1 < len && query.charAt( i + 1 ) == '*' ){
+                final int end = query.indexOf( "*/", i + 2 );
+                i = end < 0 ? len : end + 1;
+            } else if ( c == '/' && "(,:[=!&|?{};".indexOf( previousNonSpace( query, i )) > -1 ){
+                // REGULAR EXPRESSION LITERAL. A '/' INSIDE A CHARACTER CLASS DOES NOT END IT
+                boolean inClass = false;
+                i++;
+                while ( i < len && ( inClass || query.charAt( i ) != '/' ) && query.charAt( i ) != '\n' ){
+                    final char r = query.charAt( i );
+                    if ( r == '\\' ) i++;
+                    else if ( r == '[' ) inClass = true;
+                    else if ( r == ']' ) inClass = false;
+                    i++;
+                }
+            } else if ( c == '?' && "(,:[=".indexOf( previousNonSpace( query, i )) > -1 && "),}];".indexOf( nextNonSpace( query, i )) > -1 ){
+                placeholders.add( i );
+            }
+            i++;
+        }
+        return placeholders;
+    }
+
+    private static char previousNonSpace( String text, int pos ){
+        pos--;
+        while ( pos >= 0 && Character.isWhitespace( text.charAt( pos ))) pos--;
+        return pos >= 0 ? text.charAt( pos ) : '(';
+    }
+
+    private static char nextNonSpace( String text, int pos ){
+        pos++;
+        while ( pos < text.length() && Character.isWhitespace( text.charAt( pos ))) pos++;
+        return pos < text.length() ? text.charAt( pos ) : ';';
+    }
+}
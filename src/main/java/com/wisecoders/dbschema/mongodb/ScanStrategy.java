@@ -3,6 +3,9 @@ package com.wisecoders.dbschema.mongodb;
 
 /**
  * How deep the driver should look into collections in order to deduce the collection structure ( fields, data types ).
+ * fast, medium and full read the first and last documents sorted by _id.
+ * sample reads random documents using the $sample aggregation stage. The number of documents is set by the URL parameter sampleSize.
+ * infer samples the same number of documents, but the server computes the field paths and types, so the documents are not sent to the driver.
  *
  * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
  * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
@@ -10,7 +13,7 @@ package com.wisecoders.dbschema.mongodb;
 public enum ScanStrategy {
 
 
-    fast(100), medium(300 ), full( Long.MAX_VALUE );
+    fast(100), medium(300 ), full( Long.MAX_VALUE ), sample( 1000 ), infer( 1000 );
 
     public final long SCAN_COUNT;
 
@@ -0,0 +1,96 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.graalvm.polyglot.Source;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of parsed JavaScript sources, keyed by the query text.
+ * All contexts are created from the same Engine, so evaluating the same Source object again reuses the cached AST
+ * and the compiled code, instead of parsing the query from scratch.
+ * The cache size can be set in the URL with scriptCache=&lt;n&gt;. Use 0 to disable it.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+public class ScriptCache {
+
+    static final int DEFAULT_CACHE_SIZE = 500;
+
+    private int maxSize;
+    private long hits = 0, misses = 0;
+
+    private final LinkedHashMap<String, Source> sources = new LinkedHashMap<String, Source>(16, 0.75f, true ){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Source> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    ScriptCache( int maxSize ){
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Change the cache size. If the cache is larger, the least recently used sources are removed.
+     */
+    synchronized void setMaxSize( int maxSize ){
+        this.maxSize = Math.max( 0, maxSize );
+        final Iterator<String> iterator = sources.keySet().iterator();
+        while ( sources.size() > this.maxSize && iterator.hasNext() ){
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    synchronized Source getSource( String script ){
+        final String key = normalize( script );
+        Source source = sources.get( key );
+        if ( source != null ){
+            hits++;
+        } else {
+            misses++;
+            source = Source.newBuilder("js", key, "statement.js").cached(true).buildLiteral();
+            if ( maxSize > 0 ) {
+                sources.put(key, source);
+            }
+        }
+        return source;
+    }
+
+    private static String normalize( String script ){
+        return script.trim();
+    }
+
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    public synchronized int getSize(){
+        return sources.size();
+    }
+
+    /**
+     * Ratio of statements which found their parsed source in the cache, between 0 and 1.
+     */
+    public synchronized double getHitRatio(){
+        final long total = hits + misses;
+        return total > 0 ? (double)hits / total : 0d;
+    }
+
+    public synchronized void clear(){
+        sources.clear();
+        hits = misses = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ScriptCache size=" + sources.size() + "/" + maxSize + " hits=" + hits + " misses=" + misses;
+    }
+}
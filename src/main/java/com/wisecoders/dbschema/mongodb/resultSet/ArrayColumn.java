@@ -0,0 +1,117 @@
+package com.wisecoders.dbschema.mongodb.resultSet;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * One column of an ArrayResultSet. INTEGER, SMALLINT and BOOLEAN columns are stored in primitive arrays,
+ * so getInt(), getShort() and getBoolean() read the value without parsing it. Other columns are stored as objects.
+ * The null values of the primitive columns are marked in a BitSet.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+class ArrayColumn {
+
+    final int javaType;
+    private int[] ints;
+    private short[] shorts;
+    private boolean[] booleans;
+    private Object[] objects;
+    private final BitSet nulls = new BitSet();
+
+    ArrayColumn( int javaType, int capacity ){
+        switch ( javaType ){
+            case Types.INTEGER: ints = new int[capacity]; break;
+            case Types.SMALLINT: shorts = new short[capacity]; break;
+            case Types.BOOLEAN: booleans = new boolean[capacity]; break;
+            default: objects = new Object[capacity]; break;
+        }
+        this.javaType = javaType;
+    }
+
+    void grow( int capacity ){
+        if ( ints != null ) ints = Arrays.copyOf( ints, capacity );
+        else if ( shorts != null ) shorts = Arrays.copyOf( shorts, capacity );
+        else if ( booleans != null ) booleans = Arrays.copyOf( booleans, capacity );
+        else objects = Arrays.copyOf( objects, capacity );
+    }
+
+    /**
+     * Store a value. Values given as String in a typed column are parsed once here, not on each read.
+     * Values which cannot be converted or do not fit in the column type throw IllegalArgumentException, with the SQLException as cause.
+     */
+    void set( int row, Object value ){
+        if ( objects != null ){
+            objects[row] = value;
+            return;
+        }
+        if ( ValueConvertor.isNull( value ) ){
+            nulls.set( row );
+            return;
+        }
+        nulls.clear( row );
+        try {
+            if ( ints != null ) ints[row] = ValueConvertor.toInt( value );
+            else if ( shorts != null ) shorts[row] = ValueConvertor.toShort( value );
+            else booleans[row] = ValueConvertor.toBoolean( value );
+        } catch ( SQLException ex ){
+            throw new IllegalArgumentException( ex.getMessage(), ex );
+        }
+    }
+
+    boolean isNull( int row ){
+        return objects != null ? ValueConvertor.isNull( objects[row] ) : nulls.get( row );
+    }
+
+    Object get( int row ){
+        if ( objects != null ) return objects[row];
+        if ( nulls.get( row ) ) return null;
+        if ( ints != null ) return ints[row];
+        if ( shorts != null ) return shorts[row];
+        return booleans[row];
+    }
+
+    String getString( int row ){
+        if ( objects != null ) return ValueConvertor.toString( objects[row] );
+        if ( nulls.get( row ) ) return null;
+        if ( ints != null ) return String.valueOf( ints[row] );
+        if ( shorts != null ) return String.valueOf( shorts[row] );
+        return String.valueOf( booleans[row] );
+    }
+
+    long getLong( int row ) throws SQLException {
+        if ( objects != null ) return ValueConvertor.toLong( objects[row] );
+        if ( nulls.get( row ) ) return 0;
+        if ( ints != null ) return ints[row];
+        if ( shorts != null ) return shorts[row];
+        return booleans[row] ? 1 : 0;
+    }
+
+    int getInt( int row ) throws SQLException {
+        if ( ints != null ) return nulls.get( row ) ? 0 : ints[row];
+        return ValueConvertor.toInt( get( row ));
+    }
+
+    short getShort( int row ) throws SQLException {
+        if ( shorts != null ) return nulls.get( row ) ? 0 : shorts[row];
+        return ValueConvertor.toShort( get( row ));
+    }
+
+    byte getByte( int row ) throws SQLException {
+        return ValueConvertor.toByte( get( row ));
+    }
+
+    double getDouble( int row ) throws SQLException {
+        if ( objects != null ) return ValueConvertor.toDouble( objects[row] );
+        return getLong( row );
+    }
+
+    boolean getBoolean( int row ) throws SQLException {
+        if ( booleans != null ) return !nulls.get( row ) && booleans[row];
+        if ( objects != null ) return ValueConvertor.toBoolean( objects[row] );
+        return getLong( row ) != 0;
+    }
+}
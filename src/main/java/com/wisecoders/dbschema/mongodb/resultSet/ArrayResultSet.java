@@ -18,9 +18,15 @@ import java.util.Map;
  */
 public class ArrayResultSet implements ResultSet {
 
-	private Object[][] data = null;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private ArrayColumn[] columns = null;
+	private int[] columnTypes = null;
+	private int capacity = 0;
+	private int rowCount = 0;
 	private String[] columnNames = null;
 	private int currentRow = -1;
+	private boolean wasNull = false;
 	private String tableName = null;
 	private boolean isClosed = false;
 	private MongoPreparedStatement statement = null;
@@ -32,14 +38,10 @@ public class ArrayResultSet implements ResultSet {
 	{
 		if (data != null && data.length > 0 && data[0] != null)
 		{
-			int numRows = data.length;
-			int numColumns = data[0].length;
-			this.data = new String[numRows][numColumns];
-			for (int i = 0; i < numRows; i++)
+			for (String[] row : data)
 			{
-				this.data[i] = Arrays.copyOf(data[i], data[i].length);
+				addRow(row);
 			}
-
 		}
 		this.columnNames = columnNames;
 	}
@@ -48,6 +50,17 @@ public class ArrayResultSet implements ResultSet {
 		this.columnNames = Arrays.copyOf(columnNames, columnNames.length);
 	}
 
+	/**
+	 * Set the java.sql.Types of the columns, before adding rows. INTEGER, SMALLINT and BOOLEAN columns are stored
+	 * as primitives and read by getInt(), getShort() and getBoolean() without parsing. Columns without a type are VARCHAR.
+	 */
+	public void setColumnTypes(int... columnTypes) {
+		if (columns != null) {
+			throw new IllegalStateException("The column types should be set before adding rows.");
+		}
+		this.columnTypes = Arrays.copyOf(columnTypes, columnTypes.length);
+	}
+
 	public void setTableName(String tableName) {
 		this.tableName = tableName;
 	}
@@ -58,63 +71,67 @@ public class ArrayResultSet implements ResultSet {
 
 	public void addResultSet(ArrayResultSet toCopy)
 	{
-		if (toCopy.data == null || toCopy.data.length < 0)
+		if (toCopy.columns == null || toCopy.rowCount == 0)
 		{
 			return;
 		}
-		if (data == null)
+		if (columns != null && toCopy.columns.length != columns.length)
 		{
-			data = new String[toCopy.data.length][toCopy.data[0].length];
-			for (int i = 0; i < toCopy.data.length; i++)
-			{
-				data[i] = Arrays.copyOf(toCopy.data[i], toCopy.data[i].length);
-			}
+			throw new IllegalArgumentException("Array toCopy column length (" + toCopy.columns.length
+					+ ") is not " + " the same as this result sets column length (" + columns.length + ")");
 		}
-		else
+		ensureCapacity(rowCount + toCopy.rowCount, toCopy.columns.length);
+		for (int i = 0; i < toCopy.rowCount; i++)
 		{
-			if (toCopy.data[0].length != data[0].length)
-			{
-				throw new IllegalArgumentException("Array toCopy column length (" + toCopy.data[0].length
-						+ ") is not " + " the same as this result sets column length (" + toCopy.data[0].length + ")");
-			}
-			Object[][] newdata = new String[data.length + toCopy.data.length][data[0].length];
-			for (int i = 0; i < data.length; i++)
-			{
-				newdata[i] = Arrays.copyOf(data[i], data[i].length);
-			}
-			for (int i = 0; i < toCopy.data.length; i++)
+			for (int col = 0; col < columns.length; col++)
 			{
-				newdata[data.length+i] = Arrays.copyOf(toCopy.data[i], toCopy.data[i].length);
+				columns[col].set(rowCount, toCopy.columns[col].get(i));
 			}
-			data = newdata;
+			rowCount++;
 		}
 	}
 
 	public void addRow(Object[] columnValues)
 	{
-		if (data == null)
+		ensureCapacity(rowCount + 1, columnValues.length);
+		if (columnValues.length > columns.length)
+		{
+			throw new IllegalArgumentException("Row length (" + columnValues.length
+					+ ") is greater than the result set column length (" + columns.length + ")");
+		}
+		for (int col = 0; col < columnValues.length; col++)
+		{
+			columns[col].set(rowCount, columnValues[col]);
+		}
+		rowCount++;
+	}
+
+	/**
+	 * The columns are created with the first row. They grow by doubling, so adding n rows is O(n) in total.
+	 */
+	private void ensureCapacity(int minCapacity, int columnCount)
+	{
+		if (columns == null)
 		{
-			data = new String[1][columnValues.length];
-			data[0] = Arrays.copyOf(columnValues, columnValues.length);
+			capacity = Math.max(minCapacity, INITIAL_CAPACITY);
+			columns = new ArrayColumn[columnCount];
+			for (int col = 0; col < columnCount; col++)
+			{
+				columns[col] = new ArrayColumn(columnTypes != null && col < columnTypes.length ? columnTypes[col] : Types.VARCHAR, capacity);
+			}
 		}
-		else
+		else if (minCapacity > capacity)
 		{
-			int numRows = data.length;
-			Object[][] newdata = new String[numRows + 1][data[0].length];
-			for (int i = 0; i < numRows; i++)
+			capacity = Math.max(minCapacity, capacity * 2);
+			for (ArrayColumn column : columns)
 			{
-				newdata[i] = Arrays.copyOf(data[i], data[i].length);
+				column.grow(capacity);
 			}
-			newdata[numRows] = Arrays.copyOf(columnValues, columnValues.length);
-			data = newdata;
 		}
 	}
 
 	public int getRowCount() {
-		if (data == null) {
-			return 0;
-		}
-		return data.length;
+		return rowCount;
 	}
 
 	public <T> T unwrap(Class<T> iface) {
@@ -130,10 +147,7 @@ public class ArrayResultSet implements ResultSet {
 	 * @see java.sql.ResultSet#next()
 	 */
 	public boolean next() throws SQLException {
-		if (data == null) {
-			return false;
-		}
-		if (currentRow < data.length - 1) {
+		if (currentRow < rowCount - 1) {
 			currentRow++;
 			return true;
 		}
@@ -153,33 +167,43 @@ public class ArrayResultSet implements ResultSet {
 	 */
 	public boolean wasNull() throws SQLException
 	{
-
-		return false;
+		return wasNull;
 	}
 
 	public String getString(int columnIndex) throws SQLException {
-		if (currentRow >= data.length)
+		return getColumn(columnIndex).getString(currentRow);
+	}
+
+	/**
+	 * @return the column at the current row, with wasNull() set for the value in the current row.
+	 */
+	private ArrayColumn getColumn(int columnIndex) throws SQLException {
+		if (currentRow < 0 || currentRow >= rowCount)
 		{
 			throw new SQLException("ResultSet exhausted, request currentRow = " + currentRow);
 		}
 		int adjustedColumnIndex = columnIndex - 1;
-		if (adjustedColumnIndex >= data[currentRow].length)
+		if (adjustedColumnIndex < 0 || adjustedColumnIndex >= columns.length)
 		{
 			throw new SQLException("Column index does not exist: " + columnIndex);
 		}
-		final Object val = data[currentRow][adjustedColumnIndex];
-		return val != null ? val.toString() : null;
+		final ArrayColumn column = columns[adjustedColumnIndex];
+		wasNull = column.isNull(currentRow);
+		return column;
 	}
 
 	public boolean getBoolean(int columnIndex) throws SQLException
 	{
-		return Boolean.parseBoolean(getString(columnIndex));
+		return getColumn(columnIndex).getBoolean(currentRow);
 	}
 
+	/**
+	 * @see java.sql.ResultSet#getByte(int)
+	 */
 	public byte getByte(int columnIndex) throws SQLException
 	{
-
-		return 0;
+		checkClosed();
+		return getColumn(columnIndex).getByte(currentRow);
 	}
 
 	/**
@@ -188,7 +212,7 @@ public class ArrayResultSet implements ResultSet {
 	public short getShort(int columnIndex) throws SQLException
 	{
 		checkClosed();
-		return Short.parseShort(getString(columnIndex));
+		return getColumn(columnIndex).getShort(currentRow);
 	}
 
 	/**
@@ -197,7 +221,7 @@ public class ArrayResultSet implements ResultSet {
 	public int getInt(int columnIndex) throws SQLException
 	{
 		checkClosed();
-		return Integer.parseInt(getString(columnIndex));
+		return getColumn(columnIndex).getInt(currentRow);
 	}
 
 	/**
@@ -206,7 +230,7 @@ public class ArrayResultSet implements ResultSet {
 	public long getLong(int columnIndex) throws SQLException
 	{
 		checkClosed();
-		return Long.parseLong(getString(columnIndex));
+		return getColumn(columnIndex).getLong(currentRow);
 	}
 
 	/**
@@ -215,7 +239,7 @@ public class ArrayResultSet implements ResultSet {
 	public float getFloat(int columnIndex) throws SQLException
 	{
 		checkClosed();
-		return Float.parseFloat(getString(columnIndex));
+		return (float)getColumn(columnIndex).getDouble(currentRow);
 	}
 
 	/**
@@ -224,7 +248,7 @@ public class ArrayResultSet implements ResultSet {
 	public double getDouble(int columnIndex) throws SQLException
 	{
 		checkClosed();
-		return Double.parseDouble(getString(columnIndex));
+		return getColumn(columnIndex).getDouble(currentRow);
 	}
 
 	public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException
@@ -278,55 +302,42 @@ public class ArrayResultSet implements ResultSet {
 	public String getString(String columnLabel) throws SQLException
 	{
 		checkClosed();
-		int index = -1;
-		if (columnNames == null) {
-			throw new SQLException("Use of columnLabel requires setColumnNames to be called first.");
-		}
-		for (int i = 0; i < columnNames.length;  i++) {
-			if (columnLabel.equals(columnNames[i])) {
-				index = i;
-				break;
-			}
-		}
-		if (index == -1) {
-			throw new SQLException("Column "+columnLabel+" doesn't exist in this ResultSet");
-		}
-		return getString(index+1);
+		return getString(findColumn(columnLabel));
 	}
 
 	public boolean getBoolean(String columnLabel) throws SQLException
 	{
-		return Boolean.parseBoolean(getString(columnLabel));
+		return getBoolean(findColumn(columnLabel));
 	}
 
 	public byte getByte(String columnLabel) throws SQLException
 	{
-		return Byte.parseByte(getString(columnLabel));
+		return getByte(findColumn(columnLabel));
 	}
 
 	public short getShort(String columnLabel) throws SQLException
 	{
-		return Short.parseShort(getString(columnLabel));
+		return getShort(findColumn(columnLabel));
 	}
 
 	public int getInt(String columnLabel) throws SQLException
 	{
-		return Integer.parseInt(getString(columnLabel));
+		return getInt(findColumn(columnLabel));
 	}
 
 	public long getLong(String columnLabel) throws SQLException
 	{
-		return Long.parseLong(getString(columnLabel));
+		return getLong(findColumn(columnLabel));
 	}
 
 	public float getFloat(String columnLabel) throws SQLException
 	{
-		return Float.parseFloat(getString(columnLabel));
+		return getFloat(findColumn(columnLabel));
 	}
 
 	public double getDouble(String columnLabel) throws SQLException
 	{
-		return Double.parseDouble(getString(columnLabel));
+		return getDouble(findColumn(columnLabel));
 	}
 
 	public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException
@@ -395,16 +406,14 @@ public class ArrayResultSet implements ResultSet {
 		int[] columnJavaTypes = new int[columnNames.length];
 		for (int i = 0; i < columnDisplaySizes.length; i++) {
 			columnDisplaySizes[i] = columnNames[i].length();
-			columnJavaTypes[i] = Types.VARCHAR;
+			columnJavaTypes[i] = columns != null && i < columns.length ? columns[i].javaType : Types.VARCHAR;
 		}
-		if( data != null ){
-			for (Object[] row : data) {
-				for (int columnIdx = 0; columnIdx < row.length; columnIdx++) {
-					if (row[columnIdx] != null) {
-						int datalength = row[columnIdx].toString().length();
-						if (datalength > columnDisplaySizes[columnIdx]) {
-							columnDisplaySizes[columnIdx] = datalength;
-						}
+		if( columns != null ){
+			for (int columnIdx = 0; columnIdx < columns.length && columnIdx < columnNames.length; columnIdx++) {
+				for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+					final String value = columns[columnIdx].getString(rowIdx);
+					if (value != null && value.length() > columnDisplaySizes[columnIdx]) {
+						columnDisplaySizes[columnIdx] = value.length();
 					}
 				}
 			}
@@ -414,26 +423,23 @@ public class ArrayResultSet implements ResultSet {
 	}
 
 	public Object getObject(int columnIndex) throws SQLException {
-		if (currentRow >= data.length)
-		{
-			throw new SQLException("ResultSet exhausted, request currentRow = " + currentRow);
-		}
-		int adjustedColumnIndex = columnIndex - 1;
-		if (adjustedColumnIndex >= data[currentRow].length)
-		{
-			throw new SQLException("Column index does not exist: " + columnIndex);
-		}
-		return data[currentRow][adjustedColumnIndex];
+		return getColumn(columnIndex).get(currentRow);
 	}
 
-	public Object getObject(String columnLabel) {
-
-		return null;
+	public Object getObject(String columnLabel) throws SQLException {
+		return getObject(findColumn(columnLabel));
 	}
 
-	public int findColumn(String columnLabel) {
-
-		return 0;
+	public int findColumn(String columnLabel) throws SQLException {
+		if (columnNames == null) {
+			throw new SQLException("Use of columnLabel requires setColumnNames to be called first.");
+		}
+		for (int i = 0; i < columnNames.length;  i++) {
+			if (columnLabel.equals(columnNames[i])) {
+				return i + 1;
+			}
+		}
+		throw new SQLException("Column "+columnLabel+" doesn't exist in this ResultSet");
 	}
 
 	public Reader getCharacterStream(int columnIndex)  {
@@ -1,17 +1,21 @@
 package com.wisecoders.dbschema.mongodb.resultSet;
 
 import com.wisecoders.dbschema.mongodb.MongoResultSetMetaData;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
 
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.URL;
 import java.sql.Date;
 import java.sql.*;
 import java.util.*;
 
 /**
- * The Iterator can be instantiated with expand=true. In this case we read ahead MAX_READ_AHEAD documents and we fill the metaColumnNames and metaColumnTypes.
+ * The Iterator can be instantiated with expand=true. In this case we read ahead maxReadAhead documents and we fill the metaColumnNames and metaColumnTypes.
  * We need to do this as the result document can be first time for example {firstname='Luise'} and second record {firstname='John',lastname='Carry'}.
  * I mean with this that some keys may miss in some records, so expanding should look ahead for all possible keys.
  *
@@ -22,33 +26,71 @@ public class ResultSetIterator implements ResultSet {
 
     private final Iterator iterator;
     private Object current;
-    private static final int MAX_READ_AHEAD = 300;
+    public static final int DEFAULT_MAX_READ_AHEAD = 300;
+    // DOCUMENTS READ FOR THE METADATA ARE RETURNED BY next() FROM readAheadPos. THE LIST IS RELEASED WHEN DRAINED.
     private List<Object> readAhead = new ArrayList<>();
+    private int readAheadPos = 0;
     private boolean expandResultSet = false;
+    private int fetchSize = 0;
+    private boolean wasNull = false;
+    private final int maxRows;
+    private int rowCount = 0;
     private final List<String> metaColumnsNames = new ArrayList<>();
+    private final Map<String,Integer> metaColumnsIndex = new HashMap<>();
+    // VALUES OF THE CURRENT DOCUMENT IN COLUMN ORDER, WHEN expandResultSet IS TRUE. THE ARRAY IS REUSED FOR ALL ROWS.
+    private Object[] currentRow = new Object[0];
     private final List<Integer> metaJavaTypes = new ArrayList<>();
     private final List<Integer> metaDisplaySize = new ArrayList<>();
 
     ResultSetIterator(){
         this.iterator = null;
+        this.maxRows = 0;
         initMetaData();
     }
 
     public ResultSetIterator(Iterable iterable, boolean expandResultSet){
         iterator = (iterable != null ? iterable.iterator() : null);
         this.expandResultSet = expandResultSet && iterator != null;
+        this.maxRows = 0;
         initMetaData();
     }
 
     public ResultSetIterator(Iterator iterator, boolean expandResultSet ){
+        this( iterator, expandResultSet, 0 );
+    }
+
+    /**
+     * @param maxRows if positive, the result set stops after this number of rows, even if the cursor has more documents.
+     */
+    public ResultSetIterator(Iterator iterator, boolean expandResultSet, int maxRows ){
+        this( iterator, expandResultSet, maxRows, DEFAULT_MAX_READ_AHEAD );
+    }
+
+    /**
+     * @param maxReadAhead number of documents read in advance to collect the columns when expandResultSet is true.
+     */
+    public ResultSetIterator(Iterator iterator, boolean expandResultSet, int maxRows, int maxReadAhead ){
         this.iterator = iterator;
         this.expandResultSet = expandResultSet && iterator != null;
-        initMetaData();
+        this.maxRows = maxRows;
+        initMetaData( maxReadAhead );
+    }
+
+    private int getReadAheadCount(){
+        return readAhead != null ? readAhead.size() - readAheadPos : 0;
+    }
+
+    private boolean isMaxRowsReached(){
+        return maxRows > 0 && rowCount + getReadAheadCount() >= maxRows;
     }
 
     private void initMetaData(){
+        initMetaData( DEFAULT_MAX_READ_AHEAD );
+    }
+
+    private void initMetaData( int maxReadAhead ){
         if ( expandResultSet ){
-            while ( iterator.hasNext() && readAhead.size() < MAX_READ_AHEAD ){
+            while ( !isMaxRowsReached() && iterator.hasNext() && readAhead.size() < maxReadAhead ){
                 Object obj = iterator.next();
                 fillMetaData( obj );
                 readAhead.add( obj );
@@ -59,22 +101,55 @@ public class ResultSetIterator implements ResultSet {
     }
 
     private void addMetaColumn( String columnName, int javaType, int displaySize ){
+        metaColumnsIndex.put( columnName, metaColumnsNames.size() );
         metaColumnsNames.add( columnName );
         metaJavaTypes.add( javaType );
         metaDisplaySize.add( displaySize );
     }
 
     private void fillMetaData(Object obj ){
-        if ( obj instanceof Map ){
+        if ( obj instanceof RawBsonDocument ){
+            fillRawMetaData( (RawBsonDocument)obj );
+        } else if ( obj instanceof Map ){
             Map<String,Object> skipOneMap = (Map<String,Object>)obj;
-            for ( String key : skipOneMap.keySet() ){
-                if ( !metaColumnsNames.contains( key )) {
-                    addMetaColumn( key, getJavaTypeForObject(skipOneMap.get(key)), 300 );
+            for ( Map.Entry<String,Object> entry : skipOneMap.entrySet() ){
+                if ( !metaColumnsIndex.containsKey( entry.getKey() )) {
+                    addMetaColumn( entry.getKey(), getJavaTypeForObject( entry.getValue() ), 300 );
                 }
             }
         }
     }
 
+    /**
+     * Read only the keys and the value types from the raw bytes. The values are skipped, not decoded.
+     */
+    private void fillRawMetaData( RawBsonDocument document ){
+        try ( BsonBinaryReader reader = new BsonBinaryReader( document.getByteBuffer().asNIO() )){
+            reader.readStartDocument();
+            BsonType type;
+            while ( ( type = reader.readBsonType() ) != BsonType.END_OF_DOCUMENT ){
+                final String key = reader.readName();
+                if ( !metaColumnsIndex.containsKey( key )) {
+                    addMetaColumn( key, getJavaTypeForBsonType( type ), 300 );
+                }
+                reader.skipValue();
+            }
+        }
+    }
+
+    private int getJavaTypeForBsonType( BsonType type ){
+        switch ( type ){
+            case STRING: return Types.VARCHAR;
+            case INT32: return Types.INTEGER;
+            case INT64: return Types.BIGINT;
+            case DOUBLE: return Types.DOUBLE;
+            case DECIMAL128: return Types.DECIMAL;
+            case BOOLEAN: return Types.BOOLEAN;
+            case DATE_TIME: return Types.TIMESTAMP;
+            default: return Types.OTHER;
+        }
+    }
+
     private int getJavaTypeForObject( Object obj ){
         if ( obj instanceof String ) return Types.VARCHAR;
         if ( obj instanceof Integer ) return Types.INTEGER;
@@ -89,26 +164,58 @@ public class ResultSetIterator implements ResultSet {
     }
 
 
+    private void fillCurrentRow(){
+        // RAW DOCUMENTS ARE NOT COPIED. EACH GETTER DECODES ONLY THE VALUE IT READS.
+        if ( expandResultSet && current instanceof Map && !( current instanceof RawBsonDocument )){
+            if ( currentRow.length != metaColumnsNames.size() ){
+                currentRow = new Object[ metaColumnsNames.size() ];
+            } else {
+                Arrays.fill( currentRow, null );
+            }
+            for ( Map.Entry<?,?> entry : ((Map<?,?>)current).entrySet() ){
+                final Integer idx = metaColumnsIndex.get( String.valueOf( entry.getKey() ));
+                if ( idx != null ) currentRow[ idx ] = entry.getValue();
+            }
+        }
+    }
+
+    private Object getColumnValue( int columnIndex ){
+        if ( current instanceof RawBsonDocument ){
+            return columnIndex > 0 && columnIndex <= metaColumnsNames.size() ? ((RawBsonDocument)current).get( metaColumnsNames.get( columnIndex - 1 )) : null;
+        }
+        return columnIndex > 0 && columnIndex <= currentRow.length ? currentRow[ columnIndex - 1 ] : null;
+    }
+
     @Override
     public Object getObject(int columnIndex) throws SQLException {
-        if ( expandResultSet && current instanceof Map ){
-            return ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-        }
-        return current;
+        return getValue( columnIndex );
     }
 
     @Override
     public boolean next() throws SQLException {
         current = null;
-        if ( readAhead.size() > 0 ){
-            current = readAhead.get(0);
-            readAhead.remove(0);
+        if ( getReadAheadCount() > 0 ){
+            current = readAhead.get( readAheadPos );
+            readAhead.set( readAheadPos++, null );
+            if ( readAheadPos == readAhead.size() ){
+                readAhead = null;
+            }
+            fillCurrentRow();
+            rowCount++;
             return true;
         }
+        if ( isMaxRowsReached() ){
+            close();
+            return false;
+        }
         if ( iterator != null ) {
             if ( iterator.hasNext() ) {
                 current = iterator.next();
-                fillMetaData( current );
+                if ( expandResultSet ) {
+                    fillMetaData( current );
+                    fillCurrentRow();
+                }
+                rowCount++;
                 return true;
             }
         }
@@ -117,6 +224,15 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public void close() throws SQLException {
+        readAhead = null;
+        // RELEASE THE SERVER CURSOR IF THE RESULT SET IS CLOSED BEFORE READING ALL DOCUMENTS
+        if ( iterator instanceof AutoCloseable ){
+            try {
+                ((AutoCloseable) iterator).close();
+            } catch ( Exception ex ){
+                throw new SQLException( ex.getMessage(), ex );
+            }
+        }
     }
 
     @Override
@@ -134,120 +250,87 @@ public class ResultSetIterator implements ResultSet {
         return new MongoResultSetMetaData("Result", columnNames, columnTypes, displaySize );
     }
 
+    private Object getValue( int columnIndex ){
+        final Object obj = expandResultSet && current instanceof Map ? getColumnValue( columnIndex ) : current;
+        wasNull = ValueConvertor.isNull( obj );
+        return obj;
+    }
+
+    private Object getValue( String columnLabel ){
+        final Object obj = expandResultSet && current instanceof Map ? ((Map)current).get( columnLabel ) : current;
+        wasNull = ValueConvertor.isNull( obj );
+        return obj;
+    }
+
     @Override
     public boolean wasNull()  {
-        return false;
+        return wasNull;
     }
 
     @Override
     public String getString(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            return String.valueOf( ((Map)current).get( metaColumnsNames.get(columnIndex-1)));
-        }
-        return null;
+        return ValueConvertor.toString( getValue( columnIndex ));
     }
 
     @Override
-    public boolean getBoolean(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Boolean ) return (Boolean) obj;
-            return obj != null ? Boolean.valueOf( String.valueOf(obj) ) : false;
-
-        }
-        return false;
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        return ValueConvertor.toBoolean( getValue( columnIndex ));
     }
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
-        return 0;
+        return ValueConvertor.toByte( getValue( columnIndex ));
     }
 
     @Override
-    public short getShort(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).shortValue();
-            return obj != null ? Short.valueOf( String.valueOf(obj) ) : -1;
-
-        }
-        return 0;
+    public short getShort(int columnIndex) throws SQLException {
+        return ValueConvertor.toShort( getValue( columnIndex ));
     }
 
     @Override
-    public int getInt(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).intValue();
-            return obj != null ? Integer.valueOf( String.valueOf(obj) ) : -1;
-        }
-        return 0;
+    public int getInt(int columnIndex) throws SQLException {
+        return ValueConvertor.toInt( getValue( columnIndex ));
     }
 
     @Override
-    public long getLong(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).longValue();
-            return obj != null ? Long.valueOf( String.valueOf(obj) ) : -1;
-        }
-        return 0;
+    public long getLong(int columnIndex) throws SQLException {
+        return ValueConvertor.toLong( getValue( columnIndex ));
     }
 
     @Override
-    public float getFloat(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).floatValue();
-            return obj != null ? Float.valueOf( String.valueOf(obj) ) : -1f;
-        }
-        return 0;
+    public float getFloat(int columnIndex) throws SQLException {
+        return (float)ValueConvertor.toDouble( getValue( columnIndex ));
     }
 
     @Override
-    public double getDouble(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Double ) return (Double) obj;
-            return obj != null ? Double.valueOf( obj.toString() ) : -1d;
-        }
-        return 0;
+    public double getDouble(int columnIndex) throws SQLException {
+        return ValueConvertor.toDouble( getValue( columnIndex ));
     }
 
     @Override
-    public BigDecimal getBigDecimal(int columnIndex, int scale) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof BigDecimal ) return (BigDecimal) obj;
-            return  null;
-        }
-        return null;
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        final BigDecimal value = ValueConvertor.toBigDecimal( getValue( columnIndex ));
+        return value != null ? value.setScale( scale, RoundingMode.HALF_UP ) : null;
     }
 
     @Override
-    public byte[] getBytes(int columnIndex)  {
-        return new byte[0];
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        return ValueConvertor.toBytes( getValue( columnIndex ));
     }
 
     @Override
-    public Date getDate(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex));
-            if ( obj instanceof Date ) return (Date)obj;
-            if ( obj instanceof java.util.Date ) return new Date( ((java.util.Date)obj).getTime() );
-            return obj != null ? Date.valueOf( String.valueOf( obj ) ) : null;
-        }
-        return null;
+    public Date getDate(int columnIndex) throws SQLException {
+        return ValueConvertor.toDate( getValue( columnIndex ));
     }
 
     @Override
     public Time getTime(int columnIndex) throws SQLException {
-        return null;
+        return ValueConvertor.toTime( getValue( columnIndex ));
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
-        return null;
+        return ValueConvertor.toTimestamp( getValue( columnIndex ));
     }
 
     @Override
@@ -267,113 +350,68 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public String getString(String columnLabel) throws SQLException {
-        if ( expandResultSet && current instanceof Map ){
-            return String.valueOf( ((Map)current).get( columnLabel));
-        }
-        return null;
+        return ValueConvertor.toString( getValue( columnLabel ));
     }
 
     @Override
-    public boolean getBoolean(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return false;
-            if ( obj instanceof Boolean ) return (Boolean)obj;
-            return Boolean.valueOf( obj.toString() );
-        }
-        return false;
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return ValueConvertor.toBoolean( getValue( columnLabel ));
     }
 
     @Override
-    public byte getByte(String columnLabel) {
-        return 0;
+    public byte getByte(String columnLabel) throws SQLException {
+        return ValueConvertor.toByte( getValue( columnLabel ));
     }
 
     @Override
-    public short getShort(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).shortValue();
-            return Short.valueOf( obj.toString() );
-        }
-        return -1;
+    public short getShort(String columnLabel) throws SQLException {
+        return ValueConvertor.toShort( getValue( columnLabel ));
     }
 
     @Override
-    public int getInt(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).intValue();
-            return Integer.valueOf( obj.toString() );
-        }
-        return -1;
+    public int getInt(String columnLabel) throws SQLException {
+        return ValueConvertor.toInt( getValue( columnLabel ));
     }
 
     @Override
-    public long getLong(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).longValue();
-            return Long.valueOf( obj.toString() );
-        }
-        return -1;
+    public long getLong(String columnLabel) throws SQLException {
+        return ValueConvertor.toLong( getValue( columnLabel ));
     }
 
     @Override
-    public float getFloat(String columnLabel)  {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).floatValue();
-            return Float.valueOf( obj.toString() );
-        }
-        return -1f;
+    public float getFloat(String columnLabel) throws SQLException {
+        return (float)ValueConvertor.toDouble( getValue( columnLabel ));
     }
 
     @Override
-    public double getDouble(String columnLabel) {
-        if ( expandResultSet && expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).doubleValue();
-            return Double.valueOf( obj.toString() );
-        }
-        return -1d;
+    public double getDouble(String columnLabel) throws SQLException {
+        return ValueConvertor.toDouble( getValue( columnLabel ));
     }
 
     @Override
-    public BigDecimal getBigDecimal(String columnLabel, int scale)  {
-        return null;
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        final BigDecimal value = ValueConvertor.toBigDecimal( getValue( columnLabel ));
+        return value != null ? value.setScale( scale, RoundingMode.HALF_UP ) : null;
     }
 
     @Override
-    public byte[] getBytes(String columnLabel) {
-        return new byte[0];
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return ValueConvertor.toBytes( getValue( columnLabel ));
     }
 
     @Override
-    public Date getDate(String columnLabel)  {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return null;
-            if ( obj instanceof Date ) return (Date)obj;
-            if ( obj instanceof java.util.Date ) return new Date( ((java.util.Date)obj).getTime() );
-            return Date.valueOf( obj.toString() );
-        }
-        return null;
+    public Date getDate(String columnLabel) throws SQLException {
+        return ValueConvertor.toDate( getValue( columnLabel ));
     }
 
     @Override
     public Time getTime(String columnLabel) throws SQLException {
-        return null;
+        return ValueConvertor.toTime( getValue( columnLabel ));
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel) throws SQLException {
-        return null;
+        return ValueConvertor.toTimestamp( getValue( columnLabel ));
     }
 
     @Override
@@ -408,15 +446,16 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public Object getObject(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            return ((Map)current).get( columnLabel);
-        }
-        return current;
+        return getValue( columnLabel );
     }
 
     @Override
     public int findColumn(String columnLabel) throws SQLException {
-        return 0;
+        final Integer idx = metaColumnsIndex.get( columnLabel );
+        if ( idx == null ){
+            throw new SQLException("Column '" + columnLabel + "' not found.");
+        }
+        return idx + 1;
     }
 
     @Override
@@ -431,12 +470,12 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-        return null;
+        return ValueConvertor.toBigDecimal( getValue( columnIndex ));
     }
 
     @Override
     public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
-        return null;
+        return ValueConvertor.toBigDecimal( getValue( columnLabel ));
     }
 
     @Override
@@ -511,12 +550,12 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public void setFetchSize(int rows) throws SQLException {
-
+        this.fetchSize = rows;
     }
 
     @Override
     public int getFetchSize() throws SQLException {
-        return 0;
+        return fetchSize;
     }
 
     @Override
@@ -826,32 +865,32 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public Date getDate(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        return getDate( columnIndex );
     }
 
     @Override
     public Date getDate(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        return getDate( columnLabel );
     }
 
     @Override
     public Time getTime(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        return getTime( columnIndex );
     }
 
     @Override
     public Time getTime(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        return getTime( columnLabel );
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        return getTimestamp( columnIndex );
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        return getTimestamp( columnLabel );
     }
 
     @Override
@@ -986,12 +1025,12 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public String getNString(int columnIndex) throws SQLException {
-        return null;
+        return getString( columnIndex );
     }
 
     @Override
     public String getNString(String columnLabel) throws SQLException {
-        return null;
+        return getString( columnLabel );
     }
 
     @Override
@@ -0,0 +1,233 @@
+package com.wisecoders.dbschema.mongodb.resultSet;
+
+import org.bson.*;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * Conversion of the document values to the types requested by the ResultSet getters.
+ * The values can be Java objects, as decoded in Document, or BsonValue, as decoded in BsonDocument and RawBsonDocument.
+ * Numbers, booleans and dates are read directly from the value, without converting them to String.
+ * Strings are parsed only if the value is a string.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+public class ValueConvertor {
+
+    public static boolean isNull( Object obj ){
+        return obj == null || ( obj instanceof BsonValue && ((BsonValue)obj).isNull() );
+    }
+
+    public static String toString( Object obj ){
+        if ( isNull( obj ) ) return null;
+        if ( obj instanceof String ) return (String)obj;
+        if ( obj instanceof Document ) return ((Document)obj).toJson();
+        if ( obj instanceof BsonValue ){
+            final BsonValue value = (BsonValue)obj;
+            switch ( value.getBsonType() ){
+                case STRING: return value.asString().getValue();
+                case OBJECT_ID: return value.asObjectId().getValue().toHexString();
+                case INT32: return String.valueOf( value.asInt32().getValue() );
+                case INT64: return String.valueOf( value.asInt64().getValue() );
+                case DOUBLE: return String.valueOf( value.asDouble().getValue() );
+                case DECIMAL128: return value.asDecimal128().getValue().toString();
+                case BOOLEAN: return String.valueOf( value.asBoolean().getValue() );
+                case DATE_TIME: return new Timestamp( value.asDateTime().getValue() ).toString();
+                case DOCUMENT: return value.asDocument().toJson();
+                default: break;
+            }
+        }
+        return String.valueOf( obj );
+    }
+
+    public static boolean toBoolean( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return false;
+        if ( obj instanceof Boolean ) return (Boolean)obj;
+        if ( obj instanceof BsonBoolean ) return ((BsonBoolean)obj).getValue();
+        if ( obj instanceof String || obj instanceof BsonString ){
+            final String str = toString( obj ).trim();
+            return "true".equalsIgnoreCase( str ) || "1".equals( str );
+        }
+        return toDouble( obj ) != 0;
+    }
+
+    public static long toLong( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return 0;
+        if ( obj instanceof Number ) return ((Number)obj).longValue();
+        if ( obj instanceof BsonValue ){
+            final BsonValue value = (BsonValue)obj;
+            switch ( value.getBsonType() ){
+                case INT32: return value.asInt32().getValue();
+                case INT64: return value.asInt64().getValue();
+                case DOUBLE: return (long)value.asDouble().getValue();
+                case DECIMAL128: return value.asDecimal128().getValue().longValue();
+                case DATE_TIME: return value.asDateTime().getValue();
+                case BOOLEAN: return value.asBoolean().getValue() ? 1 : 0;
+                case STRING: return parseLong( value.asString().getValue() );
+                default: break;
+            }
+        }
+        if ( obj instanceof Boolean ) return (Boolean)obj ? 1 : 0;
+        if ( obj instanceof java.util.Date ) return ((java.util.Date)obj).getTime();
+        if ( obj instanceof String ) return parseLong( (String)obj );
+        throw conversionError( obj, "long" );
+    }
+
+    public static int toInt( Object obj ) throws SQLException {
+        return (int)toLongInRange( obj, Integer.MIN_VALUE, Integer.MAX_VALUE, "int" );
+    }
+
+    public static short toShort( Object obj ) throws SQLException {
+        return (short)toLongInRange( obj, Short.MIN_VALUE, Short.MAX_VALUE, "short" );
+    }
+
+    public static byte toByte( Object obj ) throws SQLException {
+        return (byte)toLongInRange( obj, Byte.MIN_VALUE, Byte.MAX_VALUE, "byte" );
+    }
+
+    /**
+     * Values out of range throw an exception instead of being cut to the lower bits.
+     * Decimals are compared before the conversion to long, so values out of the long range are also rejected.
+     */
+    private static long toLongInRange( Object obj, long min, long max, String type ) throws SQLException {
+        if ( isDecimal( obj ) ){
+            final double value = toDouble( obj );
+            if ( Double.isNaN( value ) || value <= min - 1.0 || value >= max + 1.0 ) throw conversionError( obj, type );
+            return (long)value;
+        }
+        final long value = toLong( obj );
+        if ( value < min || value > max ) throw conversionError( obj, type );
+        return value;
+    }
+
+    private static boolean isDecimal( Object obj ){
+        return obj instanceof Double || obj instanceof Float || obj instanceof BigDecimal || obj instanceof Decimal128
+                || obj instanceof BsonDouble || obj instanceof BsonDecimal128;
+    }
+
+    public static double toDouble( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return 0;
+        if ( obj instanceof Number ) return ((Number)obj).doubleValue();
+        if ( obj instanceof BsonValue ){
+            final BsonValue value = (BsonValue)obj;
+            switch ( value.getBsonType() ){
+                case INT32: return value.asInt32().getValue();
+                case INT64: return value.asInt64().getValue();
+                case DOUBLE: return value.asDouble().getValue();
+                case DECIMAL128: return value.asDecimal128().getValue().doubleValue();
+                case BOOLEAN: return value.asBoolean().getValue() ? 1 : 0;
+                case STRING: return parseDouble( value.asString().getValue() );
+                default: break;
+            }
+        }
+        if ( obj instanceof Boolean ) return (Boolean)obj ? 1 : 0;
+        if ( obj instanceof String ) return parseDouble( (String)obj );
+        throw conversionError( obj, "double" );
+    }
+
+    public static BigDecimal toBigDecimal( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return null;
+        if ( obj instanceof BigDecimal ) return (BigDecimal)obj;
+        if ( obj instanceof Decimal128 ) return ((Decimal128)obj).bigDecimalValue();
+        if ( obj instanceof BsonDecimal128 ) return ((BsonDecimal128)obj).getValue().bigDecimalValue();
+        if ( obj instanceof Double || obj instanceof Float || obj instanceof BsonDouble ) return BigDecimal.valueOf( toDouble( obj ));
+        if ( obj instanceof String || obj instanceof BsonString ){
+            try {
+                return new BigDecimal( toString( obj ).trim() );
+            } catch ( NumberFormatException ex ){
+                throw conversionError( obj, "BigDecimal" );
+            }
+        }
+        return BigDecimal.valueOf( toLong( obj ));
+    }
+
+    public static byte[] toBytes( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return null;
+        if ( obj instanceof byte[] ) return (byte[])obj;
+        if ( obj instanceof Binary ) return ((Binary)obj).getData();
+        if ( obj instanceof BsonBinary ) return ((BsonBinary)obj).getData();
+        if ( obj instanceof ObjectId ) return ((ObjectId)obj).toByteArray();
+        if ( obj instanceof BsonObjectId ) return ((BsonObjectId)obj).getValue().toByteArray();
+        if ( obj instanceof String || obj instanceof BsonString ) return toString( obj ).getBytes( StandardCharsets.UTF_8 );
+        throw conversionError( obj, "byte[]" );
+    }
+
+    public static Date toDate( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return null;
+        if ( obj instanceof Date ) return (Date)obj;
+        if ( obj instanceof String ) {
+            try {
+                return Date.valueOf( ((String)obj).trim() );
+            } catch ( IllegalArgumentException ex ){
+                throw conversionError( obj, "Date" );
+            }
+        }
+        return new Date( toMillis( obj ));
+    }
+
+    public static Time toTime( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return null;
+        if ( obj instanceof Time ) return (Time)obj;
+        if ( obj instanceof String ) {
+            try {
+                return Time.valueOf( ((String)obj).trim() );
+            } catch ( IllegalArgumentException ex ){
+                throw conversionError( obj, "Time" );
+            }
+        }
+        return new Time( toMillis( obj ));
+    }
+
+    public static Timestamp toTimestamp( Object obj ) throws SQLException {
+        if ( isNull( obj ) ) return null;
+        if ( obj instanceof Timestamp ) return (Timestamp)obj;
+        if ( obj instanceof String ) {
+            try {
+                return Timestamp.valueOf( ((String)obj).trim() );
+            } catch ( IllegalArgumentException ex ){
+                throw conversionError( obj, "Timestamp" );
+            }
+        }
+        return new Timestamp( toMillis( obj ));
+    }
+
+    private static long toMillis( Object obj ) throws SQLException {
+        if ( obj instanceof java.util.Date ) return ((java.util.Date)obj).getTime();
+        if ( obj instanceof BsonDateTime ) return ((BsonDateTime)obj).getValue();
+        // THE BSON TIMESTAMP IS STORING SECONDS
+        if ( obj instanceof BsonTimestamp ) return ((BsonTimestamp)obj).getTime() * 1000L;
+        if ( obj instanceof Number || obj instanceof BsonInt64 || obj instanceof BsonInt32 ) return toLong( obj );
+        throw conversionError( obj, "date" );
+    }
+
+    private static long parseLong( String str ) throws SQLException {
+        try {
+            return Long.parseLong( str.trim() );
+        } catch ( NumberFormatException ex ){
+            return (long)parseDouble( str );
+        }
+    }
+
+    private static double parseDouble( String str ) throws SQLException {
+        try {
+            return Double.parseDouble( str.trim() );
+        } catch ( NumberFormatException ex ){
+            throw conversionError( str, "number" );
+        }
+    }
+
+    private static SQLException conversionError( Object obj, String type ){
+        final String description = obj instanceof Map ? "document" : obj.getClass().getSimpleName() + " '" + obj + "'";
+        return new SQLException("Cannot convert " + description + " to " + type + ".");
+    }
+}
@@ -7,9 +7,8 @@ import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
@@ -24,6 +23,10 @@ public class MetaCollection extends MetaObject {
     public final boolean isVirtual;
 
     public final List<MetaIndex> metaIndexes = new ArrayList<>();
+    // ALL FIELDS OF THE COLLECTION BY THEIR PATH, LIKE 'address.city'. THE FIRST FIELD IS KEPT IF A PATH IS USED BY A VALUE AND BY AN OBJECT
+    private final Map<String, MetaField> fieldsByPath = new ConcurrentHashMap<>();
+    // SET WHEN THE SCHEMA WATCHER SCANS THE FIRST CHANGED DOCUMENT. FROM THEN THE FIELD LISTS ARE COPIED ON CHANGE
+    private volatile boolean watched = false;
 
     public MetaCollection( final MetaDatabase metaDatabase, final String name, boolean isVirtual) {
         super(null, name );
@@ -34,11 +37,74 @@ public class MetaCollection extends MetaObject {
         final MetaField idField = new MetaField(this, "_id" );
         idField.setMandatory(true);
         idField.setTypeClass( ObjectId.class );
-        fields.add(idField);
+        addField(idField);
         MetaIndex pkId = createMetaIndex( "_id_", true, false );
         pkId.addColumn( idField );
     }
 
+    @Override
+    Document toCacheDocument(){
+        final Document doc = super.toCacheDocument();
+        doc.append("virtual", isVirtual );
+        final List<Document> indexes = new ArrayList<>();
+        for ( MetaIndex index : metaIndexes ){
+            final List<String> paths = new ArrayList<>();
+            for ( MetaField field : index.metaFields ){
+                paths.add( field.getNameWithPath() );
+            }
+            indexes.add( new Document("name", index.name ).append("pk", index.pk ).append("unique", index.unique ).append("fields", paths ));
+        }
+        doc.append("indexes", indexes );
+        return doc;
+    }
+
+    static MetaCollection fromCacheDocument( MetaDatabase metaDatabase, Document doc ){
+        final MetaCollection metaCollection = new MetaCollection( metaDatabase, doc.getString("name"), doc.getBoolean("virtual", true ));
+        metaCollection.readCacheDocument( doc );
+        metaCollection.metaIndexes.clear();
+        for ( Document indexDoc : doc.getList("indexes", Document.class, Collections.emptyList() )){
+            final MetaIndex metaIndex = metaCollection.createMetaIndex( indexDoc.getString("name"), indexDoc.getBoolean("pk", false ), indexDoc.getBoolean("unique", false ));
+            for ( String path : indexDoc.getList("fields", String.class, Collections.emptyList() )){
+                metaIndex.addColumn( metaCollection.findField( path ));
+            }
+        }
+        return metaCollection;
+    }
+
+    /**
+     * Scan a document inserted or updated after the collection was discovered. Used by the schema watcher.
+     * The fields are sorted again only if new fields were found.
+     */
+    public synchronized void scanChangedDocument( Document document, boolean sortFields ){
+        watched = true;
+        final int knownFields = fieldsByPath.size();
+        scanDocument( document, 0 );
+        if ( sortFields && fieldsByPath.size() != knownFields ){
+            sortFields();
+        }
+    }
+
+    boolean isWatched(){
+        return watched;
+    }
+
+    void addFieldPath( MetaField field ){
+        fieldsByPath.putIfAbsent( field.getNameWithPath(), field );
+    }
+
+    /**
+     * Find the field with this path, like 'address.city'. If there is no such field, return the field of the longest known parent path.
+     */
+    MetaField findField( String path ){
+        while ( path != null ){
+            final MetaField field = fieldsByPath.get( path );
+            if ( field != null ) return field;
+            final int idx = path.lastIndexOf('.');
+            path = idx > 0 ? path.substring( 0, idx ) : null;
+        }
+        return null;
+    }
+
     public MetaIndex createMetaIndex(String name, boolean pk, boolean unique){
         MetaIndex index = new MetaIndex( this, name, pk, unique );
         metaIndexes.add( index );
@@ -46,25 +112,103 @@ public class MetaCollection extends MetaObject {
     }
 
     public MetaCollection scanDocumentsAndIndexes(final WrappedMongoCollection mongoCollection, final ScanStrategy strategy, boolean sortFields ) {
-        scanDocuments( mongoCollection, strategy, sortFields );
+        return scanDocumentsAndIndexes( mongoCollection, strategy, strategy.SCAN_COUNT, sortFields );
+    }
+
+    /**
+     * @param sampleSize number of documents read by the sample strategy.
+     */
+    public MetaCollection scanDocumentsAndIndexes(final WrappedMongoCollection mongoCollection, final ScanStrategy strategy, long sampleSize, boolean sortFields ) {
+        scanDocuments( mongoCollection, strategy, sampleSize );
         scanIndexes( mongoCollection );
+        if ( sortFields ){
+            sortFields();
+        }
         return this;
     }
 
-    private void scanDocuments(final WrappedMongoCollection mongoCollection, ScanStrategy strategy, boolean sortFields ) {
+    private void scanDocuments(final WrappedMongoCollection mongoCollection, ScanStrategy strategy, long sampleSize ) {
         long scanStartTime = System.currentTimeMillis();
-        long cnt = scan(mongoCollection, strategy, true, sortFields);
-        if ( getFieldCount() < 400 && cnt == strategy.SCAN_COUNT && strategy != ScanStrategy.full ){
-            cnt +=scan(mongoCollection, strategy, false, sortFields);;
+        long cnt = -1;
+        if ( strategy == ScanStrategy.sample ){
+            try {
+                cnt = sample(mongoCollection, sampleSize);
+            } catch ( Throwable ex ){
+                LOGGER.log( Level.WARNING, "Cannot sample " + mongoCollection + ", reading the first and last documents instead. ", ex );
+            }
+        } else if ( strategy == ScanStrategy.infer ){
+            try {
+                cnt = new SchemaInference( this ).infer( mongoCollection, sampleSize );
+            } catch ( Throwable ex ){
+                LOGGER.log( Level.WARNING, "Cannot infer the schema of " + mongoCollection + ", reading the first and last documents instead. ", ex );
+            }
+        }
+        if ( cnt < 0 ) {
+            // IF SAMPLE OR INFER FAILED, READ THE CONFIGURED NUMBER OF DOCUMENTS
+            final long scanCount = strategy == ScanStrategy.sample || strategy == ScanStrategy.infer ? sampleSize : strategy.SCAN_COUNT;
+            cnt = scan(mongoCollection, scanCount, true);
+            if ( getFieldCount() < 400 && cnt == scanCount && strategy != ScanStrategy.full ){
+                cnt +=scan(mongoCollection, scanCount, false);;
+            }
         }
         LOGGER.log( Level.INFO, "Scanned " + mongoCollection + " " + cnt + " documents, " + getFieldCount() + " fields in " + ( System.currentTimeMillis() - scanStartTime ) + "ms" );
     }
 
-    private long scan(WrappedMongoCollection mongoCollection, ScanStrategy strategy, boolean directionUp, boolean sortFields ) {
+    // ARRAYS ARE CUT TO THEIR FIRST ELEMENTS WHEN SAMPLING
+    private static final int SAMPLE_ARRAY_ELEMENTS = 20;
+    // NESTED OBJECTS AND ARRAYS ARE REDUCED UP TO THIS LEVEL. DEEPER VALUES ARE SENT AS THEY ARE
+    private static final int SAMPLE_LEVELS = 5;
+
+    /**
+     * Read random documents using $sample. Only the structure is needed, so the server replaces the strings
+     * with empty strings and cuts the arrays before sending the documents, also in nested objects and arrays, up to SAMPLE_LEVELS.
+     * The field types stay the same.
+     */
+    private long sample(WrappedMongoCollection mongoCollection, long sampleSize ) {
+        final List<Document> pipeline = Arrays.asList(
+                new Document("$sample", new Document("size", sampleSize )),
+                new Document("$replaceRoot", new Document("newRoot", getSampleObject( "$$ROOT", 0 ))));
+        long cnt = 0;
+        try ( MongoCursor cursor = mongoCollection.aggregate( pipeline ).allowDiskUse( true ).iterator() ) {
+            while (cursor.hasNext()) {
+                scanDocument(cursor.next(), 0);
+                cnt++;
+            }
+        }
+        return cnt;
+    }
+
+    /**
+     * The expression which rebuilds an object with its keys and reduced values. The variable names include the level,
+     * so they are unique in the nested expressions.
+     */
+    private static Document getSampleObject( String object, int level ){
+        return new Document("$arrayToObject", new Document("$map",
+                new Document("input", new Document("$objectToArray", object ))
+                        .append("as", "f" + level )
+                        .append("in", new Document("k", "$$f" + level + ".k").append("v", getSampleValue( "$$f" + level + ".v", level + 1 )))));
+    }
+
+    private static Object getSampleValue( String value, int level ){
+        final List<Document> branches = new ArrayList<>();
+        branches.add( new Document("case", new Document("$eq", Arrays.asList( new Document("$type", value ), "string"))).append("then", new Document("$literal", "")));
+        if ( level < SAMPLE_LEVELS ){
+            branches.add( new Document("case", new Document("$eq", Arrays.asList( new Document("$type", value ), "object"))).append("then", getSampleObject( value, level )));
+            branches.add( new Document("case", new Document("$isArray", value )).append("then", new Document("$map",
+                    new Document("input", new Document("$slice", Arrays.asList( value, SAMPLE_ARRAY_ELEMENTS )))
+                            .append("as", "e" + level )
+                            .append("in", getSampleValue( "$$e" + level, level + 1 )))));
+        } else {
+            branches.add( new Document("case", new Document("$isArray", value )).append("then", new Document("$slice", Arrays.asList( value, SAMPLE_ARRAY_ELEMENTS ))));
+        }
+        return new Document("$switch", new Document("branches", branches ).append("default", value ));
+    }
+
+    private long scan(WrappedMongoCollection mongoCollection, long scanCount, boolean directionUp ) {
         long cnt = 0;
         try ( MongoCursor cursor = mongoCollection.find().sort("{_id:" + (directionUp ? "1" : "-1") + "}" ).iterator() ) {
-            while (cursor.hasNext() && cnt < strategy.SCAN_COUNT) {
-                scanDocument(cursor.next(), sortFields, 0);
+            while (cursor.hasNext() && cnt < scanCount) {
+                scanDocument(cursor.next(), 0);
                 cnt++;
             }
         }
@@ -6,6 +6,7 @@ import org.bson.Document;
 import org.bson.types.ObjectId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
@@ -18,7 +19,8 @@ import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
 public class MetaDatabase {
 
     public final String name;
-    private final Map<String, MetaCollection> metaCollections = new HashMap<>();
+    // THE COLLECTIONS CAN BE DISCOVERED IN PARALLEL, SEE WrappedMongoDatabase.getMetaCollections()
+    private final Map<String, MetaCollection> metaCollections = new ConcurrentHashMap<>();
     private boolean referencesDiscovered = false;
 
     public MetaDatabase( String name ){
@@ -31,6 +33,15 @@ public class MetaDatabase {
         return metaCollection;
     }
 
+    /**
+     * Add a collection which was scanned before being added, so other threads never see it half scanned.
+     * @return the collection already added under the same name by another thread, or the given collection.
+     */
+    public MetaCollection addMetaCollectionIfAbsent( MetaCollection metaCollection ){
+        final MetaCollection existing = metaCollections.putIfAbsent( metaCollection.name, metaCollection );
+        return existing != null ? existing : metaCollection;
+    }
+
     public MetaCollection getMetaCollection(String name ){
         return metaCollections.get( name );
     }
@@ -49,7 +60,7 @@ public class MetaDatabase {
         }
     }
 
-    public void discoverReferences(WrappedMongoDatabase mongoDatabase ){
+    public synchronized void discoverReferences(WrappedMongoDatabase mongoDatabase ){
         if ( !referencesDiscovered){
             try {
                 LOGGER.info("Discover relationships in database " + name );
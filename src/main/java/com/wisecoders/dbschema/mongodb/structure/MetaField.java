@@ -2,6 +2,7 @@ package com.wisecoders.dbschema.mongodb.structure;
 
 
 import com.wisecoders.dbschema.mongodb.Util;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ public class MetaField {
 
     public final MetaObject parentObject;
     public final String name;
+    private final String nameWithPath;
     private Class<?> typeClass;
     private String typeName;
     private int javaType = Integer.MIN_VALUE;
@@ -28,6 +30,7 @@ public class MetaField {
     MetaField(final MetaObject parentObject, final String name ){
         this.parentObject = parentObject;
         this.name = (name!= null ? name : "");
+        this.nameWithPath = ( parentObject != null && !(parentObject instanceof MetaCollection ) ? parentObject.getNameWithPath() + "." + this.name : this.name );
     }
 
     void setObjectId(ObjectId objectId){
@@ -41,7 +44,7 @@ public class MetaField {
     }
 
     public String getNameWithPath(){
-        return ( parentObject != null && !(parentObject instanceof MetaCollection ) ? parentObject.getNameWithPath() + "." + name : name );
+        return nameWithPath;
     }
 
     public String getPkColumnName(){
@@ -111,14 +114,20 @@ public class MetaField {
 
     public void setTypeFromValue( Object value ){
         if ( value != null ) {
-            Class<?> valueCls = value.getClass();
-            if ( typeClass == null ) {
-                typeClass = valueCls;
-            } else if (typeClass != valueCls) {
-                // valueCls is superclass or typeClass
-                if (valueCls.isAssignableFrom(typeClass)) typeClass = valueCls;
-                else if (!typeClass.isAssignableFrom(valueCls)) typeClass = Object.class;
-            }
+            addTypeClass( value.getClass() );
+        }
+    }
+
+    /**
+     * Merge the class of a value with the classes seen before. Different classes give their common superclass or Object.
+     */
+    void addTypeClass( Class<?> valueCls ){
+        if ( typeClass == null ) {
+            typeClass = valueCls;
+        } else if (typeClass != valueCls) {
+            // valueCls is superclass or typeClass
+            if (valueCls.isAssignableFrom(typeClass)) typeClass = valueCls;
+            else if (!typeClass.isAssignableFrom(valueCls)) typeClass = Object.class;
         }
     }
 
@@ -155,4 +164,36 @@ public class MetaField {
         }
         return Util.getJavaType( getTypeName() );
     }
+
+    /**
+     * @return the field as it is stored in the SchemaCache.
+     */
+    Document toCacheDocument(){
+        final Document doc = new Document("name", name );
+        if ( typeName != null ) doc.append("typeName", typeName );
+        if ( javaType != Integer.MIN_VALUE ) doc.append("javaType", javaType );
+        if ( typeClass != null ) doc.append("typeClass", typeClass.getName() );
+        doc.append("mandatory", mandatory );
+        if ( description != null ) doc.append("description", description );
+        if ( options != null ) doc.append("options", options );
+        if ( objectId != null ) doc.append("objectId", objectId.toHexString() );
+        return doc;
+    }
+
+    void readCacheDocument( Document doc ){
+        typeName = doc.getString("typeName");
+        if ( doc.containsKey("javaType") ) javaType = doc.getInteger("javaType");
+        final String typeClassName = doc.getString("typeClass");
+        if ( typeClassName != null ){
+            try {
+                typeClass = Class.forName( typeClassName, false, MetaField.class.getClassLoader() );
+            } catch ( ClassNotFoundException ex ){
+                typeClass = Object.class;
+            }
+        }
+        mandatory = doc.getBoolean("mandatory", true );
+        description = doc.getString("description");
+        options = doc.getString("options");
+        if ( doc.containsKey("objectId") ) objectId = new ObjectId( doc.getString("objectId") );
+    }
 }
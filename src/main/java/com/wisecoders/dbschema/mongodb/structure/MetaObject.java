@@ -8,6 +8,7 @@ import org.bson.types.ObjectId;
 
 import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
@@ -18,54 +19,90 @@ public class MetaObject extends MetaField {
     public static final int TYPE_OBJECT = 4999544;
     public static final int TYPE_ARRAY = 4999545;
 
-    public final List<MetaField> fields = new ArrayList<>();
+    // THE SCHEMA WATCHER PUBLISHES A NEW LIST WHEN IT ADDS FIELDS, SO OTHER THREADS CAN ITERATE THE FIELDS WITHOUT LOCKING
+    public volatile List<MetaField> fields = new ArrayList<>();
+    // THE FIRST FIELD AND THE FIRST OBJECT OR ARRAY FIELD WITH EACH NAME. DIFFERENT DOCUMENTS MAY USE THE SAME NAME FOR A VALUE AND FOR AN OBJECT
+    private final Map<String, MetaField> fieldsByName = new ConcurrentHashMap<>();
+    private final Map<String, MetaObject> objectsByName = new ConcurrentHashMap<>();
 
     MetaObject(MetaObject parentObject, String name ){
         super( parentObject, name );
     }
 
     public MetaField getField( String name ){
-        for ( MetaField field : fields){
-            if ( field.name.equals( name )) return field;
+        return fieldsByName.get( name );
+    }
+
+    /**
+     * @return the object or array field with this name if there is one, otherwise the field with this name.
+     */
+    MetaField getObjectOrField( String name ){
+        final MetaObject object = objectsByName.get( name );
+        return object != null ? object : fieldsByName.get( name );
+    }
+
+    void addField( MetaField field ){
+        final MetaCollection metaCollection = getMetaCollection();
+        if ( metaCollection != null && metaCollection.isWatched() ){
+            final List<MetaField> copy = new ArrayList<>( fields );
+            copy.add( field );
+            fields = copy;
+        } else {
+            fields.add( field );
+        }
+        fieldsByName.putIfAbsent( field.name, field );
+        if ( field instanceof MetaObject ){
+            objectsByName.putIfAbsent( field.name, (MetaObject)field );
+        }
+        if ( metaCollection != null ){
+            metaCollection.addFieldPath( field );
         }
-        return null;
     }
 
-    public MetaField createField(String name, boolean sortFields ){
-        final MetaField field = new MetaField( this, name );
-        fields.add( field );
-        if ( sortFields ) {
+    /**
+     * Sort the fields by name, with _id first, in this object and in all child objects.
+     * Called once after the scan, so adding fields does not sort the list again each time.
+     */
+    public void sortFields(){
+        final MetaCollection metaCollection = getMetaCollection();
+        if ( metaCollection != null && metaCollection.isWatched() ){
+            final List<MetaField> sorted = new ArrayList<>( fields );
+            sorted.sort(FIELDS_COMPARATOR);
+            fields = sorted;
+        } else {
             fields.sort(FIELDS_COMPARATOR);
         }
+        for ( MetaField field : fields ){
+            if ( field instanceof MetaObject ){
+                ((MetaObject)field).sortFields();
+            }
+        }
+    }
+
+    public MetaField createField(String name ){
+        final MetaField field = new MetaField( this, name );
+        addField( field );
         return field;
     }
 
-    public MetaField createField(String name, String typeName, int javaType, boolean mandatory, boolean sortFields ){
-        for ( MetaField field : fields){
-            if ( field.name.equals( name )) return field;
-        }
+    public MetaField createField(String name, String typeName, int javaType, boolean mandatory ){
+        final MetaField existing = fieldsByName.get( name );
+        if ( existing != null ) return existing;
         final MetaField field = new MetaField( this, name );
         field.setTypeName( typeName );
         field.setJavaType( javaType );
         field.setMandatory( mandatory );
-        fields.add( field );
-        if ( sortFields ) {
-            fields.sort(FIELDS_COMPARATOR);
-        }
+        addField( field );
         return field;
     }
 
-    public MetaObject createObjectField(String name, boolean mandatory, boolean sortFields ){
-        for ( MetaField field : fields){
-            if ( field instanceof MetaObject && field.name.equals( name )) return (MetaObject)field;
-        }
+    public MetaObject createObjectField(String name, boolean mandatory ){
+        final MetaObject existing = objectsByName.get( name );
+        if ( existing != null ) return existing;
         MetaObject json = new MetaObject( this, name );
         json.setTypeName("object");
         json.setJavaType( TYPE_OBJECT );
-        fields.add( json );
-        if ( sortFields ){
-            fields.sort(FIELDS_COMPARATOR);
-        }
+        addField( json );
         json.setMandatory( mandatory );
         return json;
     }
@@ -81,18 +118,14 @@ public class MetaObject extends MetaField {
         return o1.name.compareTo(o2.name);
     };
 
-    public MetaObject createArrayField(String name, String typeName, boolean mandatoryIfNew, boolean sortFields){
-        for ( MetaField field : fields){
-            if ( field instanceof MetaObject && field.name.equals( name )) return (MetaObject)field;
-        }
+    public MetaObject createArrayField(String name, String typeName, boolean mandatoryIfNew ){
+        final MetaObject existing = objectsByName.get( name );
+        if ( existing != null ) return existing;
         MetaObject json = new MetaObject( this, name );
         json.setTypeName( typeName );
         json.setJavaType( TYPE_ARRAY );
         json.setMandatory( mandatoryIfNew);
-        fields.add( json );
-        if ( sortFields ){
-            fields.sort(FIELDS_COMPARATOR);
-        }
+        addField( json );
         return json;
     }
 
@@ -104,29 +137,18 @@ public class MetaObject extends MetaField {
         }
     }
 
-    MetaField findField( String name ){
-        for ( MetaField other : fields ){
-            if ( name != null && other.getNameWithPath() != null && name.startsWith( other.getNameWithPath())){
-                MetaField found = null;
-                if ( other instanceof MetaObject){
-                    found = ((MetaObject)other).findField(  name );
-                }
-                return found != null ? found : other;
-            }
-        }
-        return null;
-    }
-
-
-    public void visitValidatorNode(String name, boolean mandatory, Document bsonDefinition, boolean sortFields ) {
+    public void visitValidatorNode(String name, boolean mandatory, Document bsonDefinition ) {
+        // FIELDS FOUND LATER BY THE SCHEMA WATCHER ARE NOT MANDATORY
+        isFirstDiscover = false;
         List<Object> enumValues = null;
         try { enumValues = bsonDefinition.getList("enum", Object.class); } catch ( Throwable ignore ){}
         if (enumValues == null) {
             String bsonType = Util.getBsonType( bsonDefinition );
             switch (bsonType) {
                 case "object": {
-                    final MetaObject intoObject = (name != null) ? createObjectField(name, mandatory, sortFields ) : this;
-                    intoObject.visitValidatorFields((Document) bsonDefinition.get("properties"), bsonDefinition.getList("required", String.class), sortFields);
+                    final MetaObject intoObject = (name != null) ? createObjectField(name, mandatory ) : this;
+                    intoObject.isFirstDiscover = false;
+                    intoObject.visitValidatorFields((Document) bsonDefinition.get("properties"), bsonDefinition.getList("required", String.class) );
                     intoObject.setDescription( bsonDefinition.getString("description"));
                 }
                 break;
@@ -135,21 +157,23 @@ public class MetaObject extends MetaField {
                     if ( itemsDefinition != null ) {
                         String itemType = Util.getBsonType(itemsDefinition);
 
-                        MetaObject intoObject = (name != null) ? createArrayField(name, "array[" + itemType + "]", mandatory, sortFields) : this;
+                        MetaObject intoObject = (name != null) ? createArrayField(name, "array[" + itemType + "]", mandatory ) : this;
+                        intoObject.isFirstDiscover = false;
                         intoObject.setDescription(bsonDefinition.getString("description"));
                         final Document objDefinition = (Document) itemsDefinition.get("properties");
                         if (objDefinition != null) {
-                            intoObject.visitValidatorFields(objDefinition, bsonDefinition.getList("required", String.class), sortFields);
+                            intoObject.visitValidatorFields(objDefinition, bsonDefinition.getList("required", String.class) );
                         }
                     } else if ( bsonDefinition.get("properties") != null ){
-                        MetaObject intoObject = (name != null) ? createArrayField(name, "array[object]", mandatory, sortFields ) : this;
-                        intoObject.visitValidatorFields((Document) bsonDefinition.get("properties"), bsonDefinition.getList("required", String.class), sortFields);
+                        MetaObject intoObject = (name != null) ? createArrayField(name, "array[object]", mandatory ) : this;
+                        intoObject.isFirstDiscover = false;
+                        intoObject.visitValidatorFields((Document) bsonDefinition.get("properties"), bsonDefinition.getList("required", String.class) );
                         intoObject.setDescription( bsonDefinition.getString("description"));
                     }
                 }
                 break;
                 default: {
-                    final MetaField metaField = createField(name, sortFields );
+                    final MetaField metaField = createField(name );
                     metaField.setTypeName( bsonType );
                     metaField.setMandatory( mandatory );
                     metaField.setDescription( bsonDefinition.getString("description") );
@@ -160,7 +184,7 @@ public class MetaObject extends MetaField {
                 break;
             }
         } else {
-            final MetaField field = createField(name, sortFields );
+            final MetaField field = createField(name );
             field.setTypeName( "enum");
             field.setJavaType( Types.ARRAY );
             field.setMandatory( mandatory );
@@ -174,22 +198,23 @@ public class MetaObject extends MetaField {
     }
 
 
-    private void visitValidatorFields(Document document, List<String> requiredFields, boolean sortFields ) {
+    private void visitValidatorFields(Document document, List<String> requiredFields ) {
         if ( document != null ) {
             for (Map.Entry<String, Object> entry : document.entrySet()) {
                 if ( entry.getValue() != null ) {
                     boolean mandatory = requiredFields != null && requiredFields.contains(entry.getKey());
-                    visitValidatorNode(entry.getKey(), mandatory, (Document) entry.getValue(), sortFields );
+                    visitValidatorNode(entry.getKey(), mandatory, (Document) entry.getValue() );
                 }
             }
         }
     }
 
 
-    private boolean isFirstDiscover = true;
+    // SET TO FALSE AFTER THE FIRST SCANNED DOCUMENT, THE SCHEMA INFERENCE, THE VALIDATOR OR THE SCHEMA CACHE, SO FIELDS FOUND LATER ARE NOT MANDATORY
+    boolean isFirstDiscover = true;
 
     private static final int DISCOVER_CHILD_CASCADE_DEEPNESS = 25;
-    protected void scanDocument(Object objDocument, boolean sortFields, int level ){
+    protected void scanDocument(Object objDocument, int level ){
         if ( level < DISCOVER_CHILD_CASCADE_DEEPNESS && objDocument instanceof Map){
             Map document = (Map)objDocument;
             for ( Object key : document.keySet() ){
@@ -198,26 +223,26 @@ public class MetaObject extends MetaField {
                     Map subMap = (Map)value;
                     // "suburbs":[ { name: "Scarsdale" }, { name: "North Hills" } ] WOULD GENERATE SUB-ENTITIES 0,1,2,... FOR EACH LIST ENTRY. SKIP THIS
                     if ( Util.allKeysAreNumbers( subMap )){
-                        final MetaObject childrenMap = createArrayField(key.toString(), "array[int]", isFirstDiscover, sortFields );
+                        final MetaObject childrenMap = createArrayField(key.toString(), "array[int]", isFirstDiscover );
                         for ( Object subKey : subMap.keySet() ) {
-                            childrenMap.scanDocument(subMap.get( subKey ), sortFields, level+1 );
+                            childrenMap.scanDocument(subMap.get( subKey ), level+1 );
                         }
                     } else {
-                        final MetaObject childrenMap = createObjectField(key.toString(), isFirstDiscover, sortFields );
-                        childrenMap.scanDocument( value, sortFields, level+1 );
+                        final MetaObject childrenMap = createObjectField(key.toString(), isFirstDiscover );
+                        childrenMap.scanDocument( value, level+1 );
                     }
                 } else if ( value instanceof List){
                     final List<?> list = (List)value;
                     final Class cls = Util.getListElementsClass(value);
                     if ( cls == Map.class  ) {
-                        final MetaObject subDocument = createArrayField(key.toString(), "array[object]", isFirstDiscover, sortFields  );
+                        final MetaObject subDocument = createArrayField(key.toString(), "array[object]", isFirstDiscover );
                         for ( Object child : list ){
-                            subDocument.scanDocument( child, sortFields, level+1);
+                            subDocument.scanDocument( child, level+1);
                         }
                     } else if ( cls == null || cls == Object.class ){
-                        createField( (String)key, "array", 2003, isFirstDiscover, sortFields );
+                        createField( (String)key, "array", 2003, isFirstDiscover );
                     } else {
-                        final MetaField field = createField( (String)key, "array[" + cls.getSimpleName().toLowerCase() + "]", 2003, isFirstDiscover, sortFields );
+                        final MetaField field = createField( (String)key, "array[" + cls.getSimpleName().toLowerCase() + "]", 2003, isFirstDiscover );
                         if ( !list.isEmpty() && list.get(0) instanceof ObjectId ){
                             field.setObjectId( (ObjectId)list.get(0));
                         }
@@ -225,7 +250,7 @@ public class MetaObject extends MetaField {
                 } else {
                     MetaField field = getField( (String)key );
                     if ( field == null ){
-                        field = createField( (String)key, sortFields );
+                        field = createField( (String)key );
                         field.setMandatory( isFirstDiscover );
                     }
                     field.setTypeFromValue( value );
@@ -251,6 +276,35 @@ public class MetaObject extends MetaField {
         isFirstDiscover = false;
     }
 
+    @Override
+    Document toCacheDocument(){
+        final Document doc = super.toCacheDocument();
+        final List<Document> children = new ArrayList<>();
+        for ( MetaField field : fields ){
+            children.add( field.toCacheDocument() );
+        }
+        doc.append("fields", children );
+        return doc;
+    }
+
+    @Override
+    void readCacheDocument( Document doc ){
+        super.readCacheDocument( doc );
+        for ( Document child : doc.getList("fields", Document.class, Collections.emptyList() )){
+            final String childName = child.getString("name");
+            final boolean isObject = child.containsKey("fields");
+            // THE COLLECTION _id IS CREATED WITH THE COLLECTION
+            MetaField field = isObject ? objectsByName.get( childName ) : fieldsByName.get( childName );
+            if ( field == null || ( field instanceof MetaObject ) != isObject ){
+                field = isObject ? new MetaObject( this, childName ) : new MetaField( this, childName );
+                addField( field );
+            }
+            field.readCacheDocument( child );
+        }
+        // THE CACHED OBJECT WAS ALREADY DISCOVERED, SO FIELDS FOUND LATER ARE NOT MANDATORY
+        isFirstDiscover = false;
+    }
+
     public MetaCollection getMetaCollection(){
         MetaObject _obj = this;
         do {
@@ -0,0 +1,154 @@
+package com.wisecoders.dbschema.mongodb.structure;
+
+import org.bson.Document;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
+
+/**
+ * Discovered collections saved in a local file, so a new connection to the same URI and database does not have to scan them again.
+ * Each collection is saved with a fingerprint, like the document count, the indexes and the collection UUID.
+ * A cached collection is used only if the fingerprint read from the server is the same, otherwise the collection is scanned again.
+ * The file is a gzip JSON in ~/.DbSchema/cache/mongodb, named by the SHA-256 of the URI and database name, so it does not include the credentials.
+ * All connections of this JVM to the same URI and database share one SchemaCache. Other processes may write the same file,
+ * so the file is read again and merged before it is written.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+public class SchemaCache {
+
+    private static final int VERSION = 1;
+    private static final File CACHE_FOLDER = new File( System.getProperty("user.home") + "/.DbSchema/cache/mongodb");
+
+    // ONE INSTANCE FOR EACH FILE
+    private static final Map<String, SchemaCache> CACHES = new ConcurrentHashMap<>();
+
+    private final File file;
+    private final Map<String, Document> entries = new ConcurrentHashMap<>();
+    // COLLECTIONS PUT SINCE THE LAST SAVE. THEY REPLACE THE ENTRIES WRITTEN MEANWHILE BY OTHER PROCESSES
+    private final Set<String> changedCollections = ConcurrentHashMap.newKeySet();
+
+    private SchemaCache( File file ){
+        this.file = file;
+        entries.putAll( read() );
+        LOGGER.info("Loaded " + entries.size() + " collections from schema cache " + file );
+    }
+
+    public static SchemaCache forDatabase( String uri, String databaseName ){
+        final String fileName = sha256( uri + "|" + databaseName ) + ".json.gz";
+        return CACHES.computeIfAbsent( fileName, name -> new SchemaCache( new File( CACHE_FOLDER, name )));
+    }
+
+    /**
+     * @return the cached collection, or null if it is not cached or the fingerprint changed.
+     */
+    public MetaCollection get( MetaDatabase metaDatabase, String collectionName, String fingerprint ){
+        final Document entry = entries.get( collectionName );
+        if ( entry != null && fingerprint.equals( entry.getString("fingerprint"))){
+            try {
+                return MetaCollection.fromCacheDocument( metaDatabase, entry.get("collection", Document.class ));
+            } catch ( Throwable ex ){
+                LOGGER.log( Level.WARNING, "Cannot read collection " + collectionName + " from schema cache " + file + ". ", ex );
+                entries.remove( collectionName );
+            }
+        }
+        return null;
+    }
+
+    public void put( MetaCollection metaCollection, String fingerprint ){
+        entries.put( metaCollection.name, new Document("fingerprint", fingerprint ).append("collection", metaCollection.toCacheDocument() ));
+        changedCollections.add( metaCollection.name );
+    }
+
+    private Map<String, Document> read(){
+        final Map<String, Document> fileEntries = new LinkedHashMap<>();
+        if ( file.exists() ){
+            try ( Reader reader = new InputStreamReader( new GZIPInputStream( new FileInputStream( file )), StandardCharsets.UTF_8 )){
+                final StringBuilder sb = new StringBuilder();
+                final char[] buffer = new char[8192];
+                int len;
+                while ( ( len = reader.read( buffer )) > 0 ){
+                    sb.append( buffer, 0, len );
+                }
+                final Document doc = Document.parse( sb.toString() );
+                if ( doc.getInteger("version", 0 ) == VERSION ){
+                    final Document collections = doc.get("collections", Document.class );
+                    for ( String collectionName : collections.keySet() ){
+                        fileEntries.put( collectionName, collections.get( collectionName, Document.class ));
+                    }
+                }
+            } catch ( Throwable ex ){
+                LOGGER.log( Level.WARNING, "Cannot read schema cache " + file + ". ", ex );
+            }
+        }
+        return fileEntries;
+    }
+
+    /**
+     * Write the file if collections were added. The file is read again, so collections saved meanwhile by other processes are kept.
+     * The file is written in a unique temporary file and then moved, so a failed or concurrent write keeps a complete file.
+     */
+    public synchronized void save(){
+        if ( !changedCollections.isEmpty() ){
+            final Set<String> changed = new HashSet<>( changedCollections );
+            changedCollections.removeAll( changed );
+            Path tempFile = null;
+            try {
+                Files.createDirectories( CACHE_FOLDER.toPath() );
+                final Map<String, Document> merged = read();
+                for ( String collectionName : changed ){
+                    final Document entry = entries.get( collectionName );
+                    if ( entry != null ) merged.put( collectionName, entry );
+                }
+                entries.putAll( merged );
+                final Document collections = new Document();
+                for ( Map.Entry<String, Document> entry : merged.entrySet() ){
+                    collections.append( entry.getKey(), entry.getValue() );
+                }
+                final Document doc = new Document("version", VERSION ).append("collections", collections );
+                tempFile = Files.createTempFile( CACHE_FOLDER.toPath(), file.getName(), ".tmp");
+                try ( Writer writer = new OutputStreamWriter( new GZIPOutputStream( Files.newOutputStream( tempFile )), StandardCharsets.UTF_8 )){
+                    writer.write( doc.toJson() );
+                }
+                try {
+                    Files.move( tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+                } catch ( AtomicMoveNotSupportedException ex ){
+                    Files.move( tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+                }
+            } catch ( Throwable ex ){
+                LOGGER.log( Level.WARNING, "Cannot write schema cache " + file + ". ", ex );
+                if ( tempFile != null ){
+                    try { Files.deleteIfExists( tempFile ); } catch ( IOException ignore ){}
+                }
+            }
+        }
+    }
+
+    private static String sha256( String text ){
+        try {
+            final StringBuilder sb = new StringBuilder();
+            for ( byte b : MessageDigest.getInstance("SHA-256").digest( text.getBytes( StandardCharsets.UTF_8 ))){
+                sb.append( String.format("%02x", b ));
+            }
+            return sb.toString();
+        } catch ( Exception ex ){
+            return Integer.toHexString( text.hashCode() );
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.wisecoders.dbschema.mongodb.structure;
+
+import com.mongodb.client.MongoCursor;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.types.*;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Schema discovery done by the server. An aggregation samples the documents and splits them into {path, bsonType, count} rows,
+ * using $objectToArray for objects and $slice for arrays. The driver receives one row for each path and type, not the documents,
+ * so collections with large documents are discovered reading a few kilobytes. The rows are added to the MetaCollection
+ * using the same create methods as the document scan.
+ * The aggregation language has no recursion, so each level of nested objects or arrays is one pipeline stage, up to INFER_LEVELS.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+class SchemaInference {
+
+    private static final int INFER_LEVELS = 10;
+    // ARRAYS ARE CUT TO THEIR FIRST ELEMENTS, LIKE IN THE SAMPLE SCAN
+    private static final int INFER_ARRAY_ELEMENTS = 20;
+    // THE ROOT DOCUMENTS HAVE AN EMPTY PATH
+    private static final String ROOT_PATH = "";
+    // FIELD NAMES MAY CONTAIN '.', BUT NEVER THE NULL CHARACTER, SO THE PATHS ARE JOINED WITH IT
+    static final String PATH_SEPARATOR = "\u0000";
+
+    private static final Map<String, Class<?>> BSON_TYPE_CLASSES = new HashMap<>();
+    static {
+        BSON_TYPE_CLASSES.put("double", Double.class );
+        BSON_TYPE_CLASSES.put("string", String.class );
+        BSON_TYPE_CLASSES.put("binData", Binary.class );
+        BSON_TYPE_CLASSES.put("objectId", ObjectId.class );
+        BSON_TYPE_CLASSES.put("bool", Boolean.class );
+        BSON_TYPE_CLASSES.put("date", Date.class );
+        BSON_TYPE_CLASSES.put("regex", Pattern.class );
+        BSON_TYPE_CLASSES.put("javascript", Code.class );
+        BSON_TYPE_CLASSES.put("symbol", Symbol.class );
+        BSON_TYPE_CLASSES.put("javascriptWithScope", CodeWithScope.class );
+        BSON_TYPE_CLASSES.put("int", Integer.class );
+        BSON_TYPE_CLASSES.put("timestamp", BsonTimestamp.class );
+        BSON_TYPE_CLASSES.put("long", Long.class );
+        BSON_TYPE_CLASSES.put("decimal", Decimal128.class );
+        BSON_TYPE_CLASSES.put("minKey", MinKey.class );
+        BSON_TYPE_CLASSES.put("maxKey", MaxKey.class );
+    }
+    // ARRAY ELEMENT TYPES NAMED IN THE ARRAY TYPE, LIKE array[string]. SAME AS Util.getListElementsClass()
+    private static final Set<String> ARRAY_ELEMENT_TYPES = new HashSet<>( Arrays.asList("double", "string", "objectId", "bool", "date", "int", "long"));
+
+    private final MetaCollection metaCollection;
+    // SORTED BY PATH, SO EACH PATH COMES AFTER ITS PARENT PATH
+    private final TreeMap<String, InferredPath> paths = new TreeMap<>();
+
+    private static class InferredPath {
+        final Map<String, Long> valueTypes = new HashMap<>();
+        final Map<String, Long> elementTypes = new HashMap<>();
+        long valueCount = 0;
+        long objectCount = 0;
+        ObjectId objectId;
+    }
+
+    SchemaInference( MetaCollection metaCollection ){
+        this.metaCollection = metaCollection;
+    }
+
+    /**
+     * @return the number of sampled documents.
+     */
+    long infer( WrappedMongoCollection mongoCollection, long sampleSize ){
+        try ( MongoCursor cursor = mongoCollection.aggregate( createPipeline( sampleSize )).allowDiskUse( true ).iterator() ) {
+            while (cursor.hasNext()) {
+                addRow( (Document)cursor.next() );
+            }
+        }
+        return apply();
+    }
+
+    /**
+     * Each document becomes one row {p:path, t:bsonType, a:isArrayElement, v:value}. Each level stage emits the row without
+     * the value, plus one row for each field of an object value or for each element of an array value.
+     * The rows without value are passed unchanged by the next stages. At the end the rows are counted by path and type.
+     */
+    private static List<Document> createPipeline( long sampleSize ){
+        final List<Document> pipeline = new ArrayList<>();
+        pipeline.add( new Document("$sample", new Document("size", sampleSize )));
+        pipeline.add( new Document("$project", new Document("_id", 0 )
+                .append("p", new Document("$literal", ROOT_PATH ))
+                .append("t", new Document("$literal", "object"))
+                .append("a", new Document("$literal", false ))
+                .append("v", "$$ROOT")));
+
+        final Document childPath = new Document("$cond", Arrays.asList(
+                new Document("$eq", Arrays.asList("$p", ROOT_PATH )),
+                "$$c.k",
+                new Document("$concat", Arrays.asList("$p", PATH_SEPARATOR, "$$c.k"))));
+        final Document children = new Document("$switch", new Document("branches", Arrays.asList(
+                new Document("case", new Document("$eq", Arrays.asList( new Document("$type", "$v"), "object")))
+                        .append("then", new Document("$map", new Document("input", new Document("$objectToArray", "$v"))
+                                .append("as", "c")
+                                .append("in", new Document("p", childPath ).append("t", new Document("$type", "$$c.v")).append("a", false ).append("v", "$$c.v")))),
+                new Document("case", new Document("$isArray", "$v"))
+                        .append("then", new Document("$map", new Document("input", new Document("$slice", Arrays.asList("$v", INFER_ARRAY_ELEMENTS )))
+                                .append("as", "c")
+                                .append("in", new Document("p", "$p").append("t", new Document("$type", "$$c")).append("a", true ).append("v", "$$c"))))
+        )).append("default", Collections.emptyList() ));
+        // KEEP ONE OBJECTID VALUE, USED TO FIND THE REFERENCES BETWEEN COLLECTIONS
+        final Document row = new Document("p", "$p").append("t", "$t").append("a", "$a")
+                .append("o", new Document("$cond", Arrays.asList( new Document("$eq", Arrays.asList( new Document("$type", "$v"), "objectId")), "$v", "$o")));
+        for ( int level = 0; level < INFER_LEVELS; level++ ){
+            pipeline.add( new Document("$project", new Document("_id", 0 ).append("r", new Document("$concatArrays", Arrays.asList( Collections.singletonList( row ), children )))));
+            pipeline.add( new Document("$unwind", "$r"));
+            pipeline.add( new Document("$replaceRoot", new Document("newRoot", "$r")));
+        }
+        pipeline.add( new Document("$group", new Document("_id", new Document("p", "$p").append("t", "$t").append("a", "$a"))
+                .append("count", new Document("$sum", 1 ))
+                .append("objectId", new Document("$max", new Document("$cond", Arrays.asList(
+                        new Document("$eq", Arrays.asList("$t", "objectId")), new Document("$ifNull", Arrays.asList("$o", "$v")), null ))))));
+        return pipeline;
+    }
+
+    /**
+     * Add one row of the $group stage: {_id:{p:path, t:bsonType, a:isArrayElement}, count, objectId}.
+     */
+    void addRow( Document row ){
+        final Document id = row.get("_id", Document.class );
+        final String type = id.getString("t");
+        final long count = ((Number)row.get("count")).longValue();
+        final InferredPath inferredPath = paths.computeIfAbsent( id.getString("p"), path -> new InferredPath() );
+        if ( Boolean.TRUE.equals( id.get("a"))){
+            inferredPath.elementTypes.merge( type, count, Long::sum );
+        } else {
+            inferredPath.valueTypes.merge( type, count, Long::sum );
+            inferredPath.valueCount += count;
+        }
+        if ( "object".equals( type )){
+            inferredPath.objectCount += count;
+        }
+        if ( row.get("objectId") instanceof ObjectId ){
+            inferredPath.objectId = (ObjectId)row.get("objectId");
+        }
+    }
+
+    /**
+     * Create the fields. A field is mandatory if it was found in all objects of its parent path.
+     * @return the number of sampled documents.
+     */
+    long apply(){
+        final InferredPath root = paths.get( ROOT_PATH );
+        if ( root == null ){
+            return 0;
+        }
+        final Map<String, MetaObject> objects = new HashMap<>();
+        objects.put( ROOT_PATH, metaCollection );
+        for ( Map.Entry<String, InferredPath> entry : paths.entrySet() ){
+            final String path = entry.getKey();
+            final InferredPath inferredPath = entry.getValue();
+            final int idx = path.lastIndexOf( PATH_SEPARATOR );
+            final String parentPath = idx > 0 ? path.substring( 0, idx ) : ROOT_PATH;
+            final MetaObject parent = objects.get( parentPath );
+            if ( ROOT_PATH.equals( path ) || parent == null ){
+                continue;
+            }
+            final String name = path.substring( idx + PATH_SEPARATOR.length() );
+            final boolean mandatory = inferredPath.valueCount >= paths.get( parentPath ).objectCount;
+            if ( inferredPath.valueTypes.containsKey("object") ){
+                objects.putIfAbsent( path, parent.createObjectField( name, mandatory ));
+            }
+            if ( inferredPath.valueTypes.containsKey("array") ){
+                if ( inferredPath.elementTypes.containsKey("object") ){
+                    objects.putIfAbsent( path, parent.createArrayField( name, "array[object]", mandatory ));
+                } else {
+                    final MetaField field = parent.createField( name, getArrayTypeName( inferredPath.elementTypes.keySet() ), 2003, mandatory );
+                    if ( inferredPath.elementTypes.containsKey("objectId") ){
+                        field.setObjectId( inferredPath.objectId );
+                    }
+                }
+            }
+            boolean isValue = false;
+            for ( String type : inferredPath.valueTypes.keySet() ){
+                isValue |= !"object".equals( type ) && !"array".equals( type );
+            }
+            if ( isValue ){
+                MetaField field = parent.getField( name );
+                if ( field == null ){
+                    field = parent.createField( name );
+                    field.setMandatory( mandatory );
+                }
+                for ( String type : inferredPath.valueTypes.keySet() ){
+                    final Class<?> typeClass = BSON_TYPE_CLASSES.get( type );
+                    if ( typeClass != null ){
+                        field.addTypeClass( typeClass );
+                    }
+                }
+                // VALUES WHICH ARE OBJECTID AND ARE NOT _id IN THE ROOT MAP
+                if ( inferredPath.valueTypes.containsKey("objectId") && !"_id".equals( path )){
+                    field.setObjectId( inferredPath.objectId );
+                }
+            }
+        }
+        // DOCUMENTS SCANNED LATER, LIKE BY THE SCHEMA WATCHER, SHOULD NOT MAKE NEW FIELDS MANDATORY
+        for ( MetaObject object : objects.values() ){
+            object.isFirstDiscover = false;
+        }
+        return root.valueCount;
+    }
+
+    private static String getArrayTypeName( Set<String> elementTypes ){
+        String elementType = null;
+        for ( String type : elementTypes ){
+            if ( "null".equals( type )) continue;
+            if ( elementType != null || !ARRAY_ELEMENT_TYPES.contains( type )) return "array";
+            elementType = type;
+        }
+        return elementType != null ? "array[" + BSON_TYPE_CLASSES.get( elementType ).getSimpleName().toLowerCase() + "]" : "array";
+    }
+}
@@ -0,0 +1,151 @@
+package com.wisecoders.dbschema.mongodb.wrappers;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
+import com.wisecoders.dbschema.mongodb.structure.MetaDatabase;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
+
+/**
+ * Background thread which keeps the discovered collections up to date using the database change stream.
+ * The inserted, updated and replaced documents of the collections already discovered are scanned, so new fields
+ * show up without opening a new connection. Change streams require a replica set or a sharded cluster.
+ * The stream is filtered by the discovered collection names, so the server does not look up the documents of other collections.
+ * When more collections are discovered the stream is opened again with the new names, resuming after the last event.
+ * After errors the watcher resumes after the last event. It stops if the server does not support change streams.
+ *
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+class SchemaWatcher implements Runnable {
+
+    private static final long RETRY_DELAY_MS = 10000;
+    // HOW LONG THE SERVER WAITS FOR CHANGES BEFORE THE WATCHER CHECKS IF IT WAS STOPPED OR IF NEW COLLECTIONS WERE DISCOVERED
+    private static final long MAX_AWAIT_MS = 1000;
+    // SERVER ERROR CODES
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+
+    private final MongoDatabase mongoDatabase;
+    private final MetaDatabase metaDatabase;
+    private final boolean sortFields;
+    private final Thread thread;
+    private volatile boolean stopped = false;
+    private volatile boolean collectionsChanged = false;
+    private BsonDocument resumeToken;
+
+    SchemaWatcher( MongoDatabase mongoDatabase, MetaDatabase metaDatabase, boolean sortFields ){
+        this.mongoDatabase = mongoDatabase;
+        this.metaDatabase = metaDatabase;
+        this.sortFields = sortFields;
+        this.thread = new Thread( this, "MongoJdbc-SchemaWatcher-" + mongoDatabase.getName() );
+        this.thread.setDaemon( true );
+        this.thread.start();
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Schema watcher started for database " + mongoDatabase.getName() );
+        while ( !stopped ){
+            try {
+                collectionsChanged = false;
+                final List<Bson> pipeline = Collections.singletonList( Aggregates.match( Filters.and(
+                        Filters.in("operationType", Arrays.asList("insert", "update", "replace")),
+                        Filters.in("ns.coll", getCollectionNames() ))));
+                ChangeStreamIterable<Document> changeStream = mongoDatabase.watch( pipeline )
+                        .fullDocument( FullDocument.UPDATE_LOOKUP )
+                        .maxAwaitTime( MAX_AWAIT_MS, TimeUnit.MILLISECONDS );
+                if ( resumeToken != null ){
+                    changeStream = changeStream.resumeAfter( resumeToken );
+                }
+                try ( MongoChangeStreamCursor<ChangeStreamDocument<Document>> streamCursor = changeStream.cursor() ){
+                    while ( !stopped && !collectionsChanged ){
+                        final ChangeStreamDocument<Document> change = streamCursor.tryNext();
+                        if ( change != null ){
+                            resumeToken = change.getResumeToken();
+                            scanChange( change );
+                        } else if ( streamCursor.getResumeToken() != null ){
+                            // THE POSITION IS KEPT ALSO WHEN NO EVENTS MATCH THE FILTER
+                            resumeToken = streamCursor.getResumeToken();
+                        }
+                    }
+                }
+            } catch ( MongoCommandException ex ){
+                if ( ex.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED ){
+                    LOGGER.log( Level.WARNING, "Schema watcher stopped for database " + mongoDatabase.getName() + ". Change streams require a replica set or a sharded cluster. ", ex );
+                    stopped = true;
+                } else {
+                    if ( ex.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || ex.getErrorCode() == CHANGE_STREAM_FATAL_ERROR ){
+                        resumeToken = null;
+                    }
+                    retryLater( ex );
+                }
+            } catch ( Throwable ex ){
+                retryLater( ex );
+            }
+        }
+        LOGGER.info("Schema watcher stopped for database " + mongoDatabase.getName() );
+    }
+
+    private List<String> getCollectionNames(){
+        final List<String> names = new ArrayList<>();
+        for ( MetaCollection metaCollection : metaDatabase.getMetaCollections() ){
+            names.add( metaCollection.name );
+        }
+        return names;
+    }
+
+    /**
+     * Called when more collections are discovered. The stream is opened again with the new collection names.
+     */
+    void collectionsChanged(){
+        collectionsChanged = true;
+    }
+
+    private void scanChange( ChangeStreamDocument<Document> change ){
+        final MongoNamespace namespace = change.getNamespace();
+        final Document document = change.getFullDocument();
+        if ( namespace != null && document != null ){
+            // ONLY COLLECTIONS ALREADY DISCOVERED ARE UPDATED
+            final MetaCollection metaCollection = metaDatabase.getMetaCollection( namespace.getCollectionName() );
+            if ( metaCollection != null ){
+                metaCollection.scanChangedDocument( document, sortFields );
+            }
+        }
+    }
+
+    private void retryLater( Throwable ex ){
+        if ( !stopped ){
+            LOGGER.log( Level.WARNING, "Schema watcher error for database " + mongoDatabase.getName() + ", retry in " + RETRY_DELAY_MS + "ms. ", ex );
+            try {
+                Thread.sleep( RETRY_DELAY_MS );
+            } catch ( InterruptedException ignore ){
+                stopped = true;
+            }
+        }
+    }
+
+    void stop(){
+        stopped = true;
+        thread.interrupt();
+    }
+}
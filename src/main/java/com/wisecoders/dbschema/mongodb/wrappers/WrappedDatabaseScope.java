@@ -0,0 +1,45 @@
+package com.wisecoders.dbschema.mongodb.wrappers;
+
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyObject;
+
+/**
+ * Global scope exposing the databases as JavaScript variables, so scripts can write local.books.find().
+ * A database is resolved only when the script references it. The database names are cached by the client with a TTL.
+ * The init.js is linking this object in the prototype chain of the JavaScript global object.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class WrappedDatabaseScope implements ProxyObject {
+
+    private final WrappedMongoClient client;
+
+    WrappedDatabaseScope( WrappedMongoClient client ){
+        this.client = client;
+    }
+
+    @Override
+    public boolean hasMember(String key) {
+        return client.getDatabaseNames().contains( key );
+    }
+
+    @Override
+    public Object getMember(String key) {
+        return hasMember( key ) ? client.getDatabase( key ) : null;
+    }
+
+    @Override
+    public Object getMemberKeys() {
+        return client.getDatabaseNames().toArray();
+    }
+
+    @Override
+    public void putMember(String key, Value value) {
+    }
+
+    @Override
+    public String toString() {
+        return client.getURI();
+    }
+}
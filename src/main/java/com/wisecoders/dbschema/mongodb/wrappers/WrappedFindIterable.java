@@ -23,6 +23,8 @@ import java.util.function.Consumer;
 public class WrappedFindIterable<TResult> implements com.mongodb.client.MongoIterable<TResult> {
 
     private final FindIterable<TResult> findIterable;
+    private int limit = 0;
+    private boolean hasProjection = false;
 
     private TResult toDocument( Map map ){
         return (TResult)( new Document( map ));
@@ -44,11 +46,24 @@ public class WrappedFindIterable<TResult> implements com.mongodb.client.MongoIte
 
     public WrappedFindIterable projection(String str) {
         findIterable.projection(BasicDBObject.parse(str));
+        hasProjection = true;
         return this;
     }
 
     public WrappedFindIterable projection(Map map) {
         findIterable.projection( GraalConvertor.toBson( map ) );
+        hasProjection = true;
+        return this;
+    }
+
+    /**
+     * Project the result to the columns requested by the JDBC statement, if the query has no projection.
+     * The _id is returned only if it is requested.
+     */
+    public WrappedFindIterable applyColumns(Collection<String> columns) {
+        if ( columns != null && !columns.isEmpty() && !hasProjection ){
+            projection( (Bson)GraalConvertor.toProjection( columns ));
+        }
         return this;
     }
 
@@ -83,6 +98,17 @@ public class WrappedFindIterable<TResult> implements com.mongodb.client.MongoIte
 
     public WrappedFindIterable limit(int i) {
         findIterable.limit( i );
+        limit = i;
+        return this;
+    }
+
+    /**
+     * Set the limit to the JDBC statement maxRows, if there is no smaller limit already set.
+     */
+    public WrappedFindIterable applyMaxRows(int maxRows) {
+        if ( maxRows > 0 && ( limit == 0 || Math.abs( limit ) > maxRows )){
+            limit( maxRows );
+        }
         return this;
     }
 
@@ -98,6 +124,7 @@ public class WrappedFindIterable<TResult> implements com.mongodb.client.MongoIte
 
     public WrappedFindIterable projection(Bson bson) {
         findIterable.projection( bson );
+        hasProjection = bson != null;
         return this;
     }
 
@@ -106,6 +133,11 @@ public class WrappedFindIterable<TResult> implements com.mongodb.client.MongoIte
         return this;
     }
 
+    public WrappedFindIterable comment(String comment) {
+        findIterable.comment( comment );
+        return this;
+    }
+
     public WrappedFindIterable noCursorTimeout(boolean b) {
         findIterable.noCursorTimeout( b );
         return this;
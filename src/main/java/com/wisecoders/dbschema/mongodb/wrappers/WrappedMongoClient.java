@@ -4,8 +4,11 @@ import com.mongodb.ConnectionString;
 import com.mongodb.client.ListDatabasesIterable;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
 import com.wisecoders.dbschema.mongodb.ScanStrategy;
+import com.wisecoders.dbschema.mongodb.resultSet.ResultSetIterator;
+import com.wisecoders.dbschema.mongodb.structure.SchemaCache;
 import org.bson.BsonDocument;
 import org.bson.BsonInt64;
 import org.bson.Document;
@@ -30,6 +33,25 @@ public class WrappedMongoClient {
     private final ScanStrategy scanStrategy;
     public final boolean expandResultSet, sortFields;
 
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    // JDBC BATCH SETTINGS, SET FROM THE URL PARAMETERS batchSize AND orderedBatch
+    public int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    public boolean orderedBatch = true;
+    // DOCUMENTS READ AHEAD BY EXPANDED RESULT SETS TO FIND THE COLUMNS, SET FROM THE URL PARAMETER readAhead
+    public int maxReadAhead = ResultSetIterator.DEFAULT_MAX_READ_AHEAD;
+    // READ find() AND aggregate() RESULTS AS RawBsonDocument, SET FROM THE URL PARAMETER rawBson
+    public boolean rawDocuments = false;
+    public static final int DEFAULT_DISCOVER_THREADS = 8;
+    // COLLECTIONS SCANNED IN PARALLEL BY DatabaseMetaData.getColumns() FOR ALL TABLES, SET FROM THE URL PARAMETER discoverThreads
+    public int discoverThreads = DEFAULT_DISCOVER_THREADS;
+    // DOCUMENTS READ BY scan=sample, SET FROM THE URL PARAMETER sampleSize
+    public long sampleSize = ScanStrategy.sample.SCAN_COUNT;
+    // SAVE THE DISCOVERED COLLECTIONS IN A LOCAL FILE AND REUSE THEM IF THEY DID NOT CHANGE, SET FROM THE URL PARAMETER schemaCache
+    public boolean schemaCache = false;
+    // KEEP THE DISCOVERED COLLECTIONS UP TO DATE USING CHANGE STREAMS, SET FROM THE URL PARAMETER watchSchema
+    public boolean watchSchema = false;
+    private final WrappedDatabaseScope databaseScope = new WrappedDatabaseScope( this );
+
     public WrappedMongoClient(String uri, final Properties prop, final String databaseName, final ScanStrategy scanStrategy, boolean expandResultSet, boolean sortFields ){
         final ConnectionString connectionString = new ConnectionString(uri){
             @Override
@@ -65,9 +87,28 @@ public class WrappedMongoClient {
     }
 
     public void close(){
+        final List<WrappedMongoDatabase> databases;
+        synchronized ( this ){
+            databases = new ArrayList<>( cachedDatabases.values() );
+        }
+        for ( WrappedMongoDatabase database : databases ){
+            database.stopSchemaWatcher();
+            database.saveSchemaCache();
+        }
         mongoClient.close();
     }
 
+    /**
+     * Kill the server operations tagged with this comment. Requires the killop privilege for operations of other users.
+     */
+    public void killOperations( String comment ){
+        final MongoDatabase admin = mongoClient.getDatabase("admin");
+        final Document currentOp = admin.runCommand( new Document("currentOp", 1).append("command.comment", comment ));
+        for ( Document op : currentOp.getList("inprog", Document.class, Collections.emptyList() )){
+            admin.runCommand( new Document("killOp", 1).append("op", op.get("opid")));
+        }
+    }
+
     public MongoIterable<String> listDatabaseNames() {
         return mongoClient.listDatabaseNames();
     }
@@ -89,16 +130,30 @@ public class WrappedMongoClient {
         return databaseName != null ? databaseName : "admin";
     }
 
-    public List<String> getDatabaseNames() {
-        final List<String> names = new ArrayList<>();
-        try {
-            // THIS OFTEN THROWS EXCEPTION BECAUSE OF MISSING RIGHTS. IN THIS CASE WE ONLY ADD CURRENT KNOWN DB.
-            for ( String dbName : listDatabaseNames() ){
-                names.add( dbName );
+    // THE DATABASE LIST IS READ FROM THE SERVER AT MOST ONCE IN THIS INTERVAL
+    private static final long DATABASE_NAMES_TTL_MS = 30000;
+    private List<String> cachedDatabaseNames;
+    private long cachedDatabaseNamesTime;
+
+    private synchronized List<String> getServerDatabaseNames(){
+        if ( cachedDatabaseNames == null || System.currentTimeMillis() - cachedDatabaseNamesTime > DATABASE_NAMES_TTL_MS ) {
+            final List<String> names = new ArrayList<>();
+            try {
+                // THIS OFTEN THROWS EXCEPTION BECAUSE OF MISSING RIGHTS. IN THIS CASE WE ONLY ADD CURRENT KNOWN DB.
+                for (String dbName : listDatabaseNames()) {
+                    names.add(dbName);
+                }
+            } catch (Throwable ex) {
+                names.add(getCurrentDatabaseName());
             }
-        } catch ( Throwable ex ){
-            names.add( getCurrentDatabaseName() );
+            cachedDatabaseNames = names;
+            cachedDatabaseNamesTime = System.currentTimeMillis();
         }
+        return cachedDatabaseNames;
+    }
+
+    public List<String> getDatabaseNames() {
+        final List<String> names = new ArrayList<>( getServerDatabaseNames() );
         for ( String str : createdDatabases ){
             if ( !names.contains( str )){
                 names.add( str );
@@ -109,15 +164,22 @@ public class WrappedMongoClient {
 
     private final Map<String, WrappedMongoDatabase> cachedDatabases = new HashMap<>();
 
-    public WrappedMongoDatabase getDatabase(String dbName) {
+    public synchronized WrappedMongoDatabase getDatabase(String dbName) {
         if ( cachedDatabases.containsKey(dbName )){
             return cachedDatabases.get( dbName);
         }
-        WrappedMongoDatabase db = new WrappedMongoDatabase(mongoClient.getDatabase(dbName), scanStrategy, sortFields );
+        WrappedMongoDatabase db = new WrappedMongoDatabase(mongoClient.getDatabase(dbName), scanStrategy, sampleSize, sortFields, schemaCache ? SchemaCache.forDatabase( uri, dbName ) : null, watchSchema );
         cachedDatabases.put( dbName, db );
         return db;
     }
 
+    /**
+     * Scope bound in JavaScript which resolves database names only when they are used by scripts.
+     */
+    public WrappedDatabaseScope getDatabaseScope() {
+        return databaseScope;
+    }
+
     public List<WrappedMongoDatabase> getDatabases() {
         final List<WrappedMongoDatabase> list = new ArrayList<>();
 
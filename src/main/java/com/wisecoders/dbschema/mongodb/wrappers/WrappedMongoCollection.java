@@ -1,9 +1,11 @@
 package com.wisecoders.dbschema.mongodb.wrappers;
 
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoNamespace;
 import com.mongodb.ReadConcern;
 import com.mongodb.ReadPreference;
 import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.*;
 import com.mongodb.client.model.*;
@@ -16,6 +18,8 @@ import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -85,8 +89,7 @@ public class WrappedMongoCollection<TDocument> {
 
 
     public WrappedMongoCollection withDocumentClass(Class clazz) {
-        mongoCollection.withDocumentClass( clazz );
-        return this;
+        return new WrappedMongoCollection( wrappedMongoDatabase, mongoCollection.withDocumentClass( clazz ));
     }
 
 
@@ -220,7 +223,7 @@ public class WrappedMongoCollection<TDocument> {
     }
 
     public WrappedFindIterable find(Map filter, Map projection) {
-        return new WrappedFindIterable( mongoCollection.find(GraalConvertor.toBson(filter)).projection( GraalConvertor.toBson(projection) ));
+        return new WrappedFindIterable( mongoCollection.find(GraalConvertor.toBson(filter))).projection( projection );
     }
 
 
@@ -448,26 +451,30 @@ public class WrappedMongoCollection<TDocument> {
 
 
     public void insertMany(Object[] arr) {
-        for ( Object obj: arr ){
-            insertOne( (Map)obj );
-        }
+        insertMany( (Object)arr );
     }
 
     public void insertMany(List list) {
-        for ( Object obj: list ){
-            insertOne( (Map)obj );
-        }
+        insertMany( (Object)list );
     }
 
     public void insertMany(Object obj) {
-        List list = GraalConvertor.toList( obj );
-        if ( list != null ) {
-            for (Map map1 : (List<Map>) list) {
-                insertOne(map1);
-            }
-        } else if (obj instanceof Map) {
-            insertOne((Map) obj);
+        insertInChunks( null, toDocuments( obj ), new InsertManyOptions() );
+    }
+
+    /**
+     * Same as in the Mongo Shell: insertMany([...], {ordered: false}).
+     * Unordered inserts are faster, and the server continues with the next documents after a failed insert.
+     */
+    public void insertMany(Object obj, Map options) {
+        final InsertManyOptions insertManyOptions = new InsertManyOptions();
+        if ( options != null && options.get("ordered") instanceof Boolean ){
+            insertManyOptions.ordered( (Boolean)options.get("ordered") );
         }
+        if ( options != null && options.get("bypassDocumentValidation") instanceof Boolean ){
+            insertManyOptions.bypassDocumentValidation( (Boolean)options.get("bypassDocumentValidation") );
+        }
+        insertInChunks( null, toDocuments( obj ), insertManyOptions );
     }
 
     public void insert(Map input) {
@@ -488,16 +495,120 @@ public class WrappedMongoCollection<TDocument> {
 
 
     public void insertMany(List<Map> list, InsertManyOptions options) {
+        insertInChunks( null, toDocuments( list ), options );
     }
 
 
     public void insertMany(ClientSession clientSession, List list) {
+        insertInChunks( clientSession, toDocuments( list ), new InsertManyOptions() );
     }
 
 
     public void insertMany(ClientSession clientSession, List list, InsertManyOptions options) {
+        insertInChunks( clientSession, toDocuments( list ), options );
+    }
+
+    // SERVER LIMITS ARE 100 000 DOCUMENTS AND 48MB PER MESSAGE. THE DOCUMENT SIZE IS ONLY ESTIMATED, SO WE KEEP A MARGIN.
+    private static final int MAX_INSERT_DOCUMENTS = 100000;
+    private static final long MAX_INSERT_BYTES = 40L * 1024 * 1024;
+
+    private List<TDocument> toDocuments( Object obj ){
+        final List<TDocument> documents = new ArrayList<>();
+        List list = null;
+        if ( obj instanceof Object[] ){
+            list = Arrays.asList( (Object[])obj );
+        } else if ( obj instanceof List ){
+            list = (List)obj;
+        } else if ( obj != null ){
+            list = GraalConvertor.toList( obj );
+        }
+        if ( list != null ){
+            for ( Object item : list ){
+                documents.add( toDocument( (Map)item ));
+            }
+        } else if ( obj instanceof Map ){
+            documents.add( toDocument( (Map)obj ));
+        }
+        return documents;
+    }
+
+    /**
+     * Ordered inserts stop at the first failed chunk. Unordered inserts continue with the next chunks.
+     * The write errors of all chunks are thrown at the end in one MongoBulkWriteException, with the indexes in the whole list.
+     */
+    private void insertInChunks( ClientSession clientSession, List<TDocument> documents, InsertManyOptions options ){
+        final List<Integer> chunkStarts = new ArrayList<>();
+        int start = 0;
+        long chunkBytes = 0;
+        for ( int i = 0; i < documents.size(); i++ ){
+            final long size = approximateBsonSize( documents.get( i ));
+            if ( i > start && ( i - start >= MAX_INSERT_DOCUMENTS || chunkBytes + size > MAX_INSERT_BYTES )){
+                chunkStarts.add( start );
+                start = i;
+                chunkBytes = 0;
+            }
+            chunkBytes += size;
+        }
+        if ( start < documents.size() ){
+            chunkStarts.add( start );
+        }
+        int insertedCount = 0;
+        final List<BulkWriteError> writeErrors = new ArrayList<>();
+        MongoBulkWriteException lastException = null;
+        for ( int c = 0; c < chunkStarts.size(); c++ ){
+            final int chunkStart = chunkStarts.get( c );
+            final int chunkEnd = c + 1 < chunkStarts.size() ? chunkStarts.get( c + 1 ) : documents.size();
+            try {
+                insertChunk( clientSession, documents.subList( chunkStart, chunkEnd ), options );
+                insertedCount += chunkEnd - chunkStart;
+            } catch ( MongoBulkWriteException ex ){
+                if ( ex.getWriteResult().wasAcknowledged() ){
+                    insertedCount += ex.getWriteResult().getInsertedCount();
+                }
+                for ( BulkWriteError error : ex.getWriteErrors() ){
+                    writeErrors.add( new BulkWriteError( error.getCode(), error.getMessage(), error.getDetails(), chunkStart + error.getIndex() ));
+                }
+                lastException = ex;
+                if ( options.isOrdered() ){
+                    break;
+                }
+            }
+        }
+        if ( lastException != null ){
+            throw new MongoBulkWriteException( BulkWriteResult.acknowledged( insertedCount, 0, 0, 0, Collections.emptyList(), Collections.emptyList() ),
+                    writeErrors, lastException.getWriteConcernError(), lastException.getServerAddress(), lastException.getErrorLabels() );
+        }
     }
 
+    private void insertChunk( ClientSession clientSession, List<TDocument> chunk, InsertManyOptions options ){
+        if ( clientSession != null ){
+            mongoCollection.insertMany( clientSession, chunk, options );
+        } else {
+            mongoCollection.insertMany( chunk, options );
+        }
+    }
+
+    private static long approximateBsonSize( Object value ){
+        if ( value instanceof Map ){
+            long size = 5;
+            for ( Map.Entry<?,?> entry : ((Map<?,?>)value).entrySet() ){
+                size += String.valueOf( entry.getKey() ).length() + 2 + approximateBsonSize( entry.getValue() );
+            }
+            return size;
+        } else if ( value instanceof List ){
+            long size = 5;
+            for ( Object obj : (List<?>)value ){
+                size += 8 + approximateBsonSize( obj );
+            }
+            return size;
+        } else if ( value instanceof String ){
+            // UTF-8 MAY USE UP TO 3 BYTES FOR ONE JAVA CHAR
+            return 5 + 3L * ((String)value).length();
+        } else if ( value instanceof byte[] ){
+            return 5 + ((byte[])value).length;
+        }
+        return 16;
+    }
 
     public DeleteResult deleteOne(Map filter) {
         return mongoCollection.deleteOne( GraalConvertor.toBson( filter ));
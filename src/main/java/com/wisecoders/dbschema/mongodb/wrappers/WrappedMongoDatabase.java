@@ -2,6 +2,7 @@ package com.wisecoders.dbschema.mongodb.wrappers;
 
 import com.google.gson.GsonBuilder;
 import com.mongodb.client.ListCollectionsIterable;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
 import com.mongodb.client.model.CreateCollectionOptions;
@@ -11,15 +12,14 @@ import com.wisecoders.dbschema.mongodb.ScanStrategy;
 import com.wisecoders.dbschema.mongodb.Util;
 import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
 import com.wisecoders.dbschema.mongodb.structure.MetaDatabase;
+import com.wisecoders.dbschema.mongodb.structure.SchemaCache;
 import org.bson.Document;
 import org.graalvm.polyglot.Value;
 import org.graalvm.polyglot.proxy.ProxyExecutable;
 import org.graalvm.polyglot.proxy.ProxyObject;
 
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.Level;
 
 import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
@@ -35,14 +35,21 @@ public class WrappedMongoDatabase implements ProxyObject {
 
     private final MongoDatabase mongoDatabase;
     private final ScanStrategy scanStrategy;
+    private final long sampleSize;
     public final MetaDatabase metaDatabase;
     private final boolean sortFields;
+    private final SchemaCache schemaCache;
+    private final boolean watchSchema;
+    private SchemaWatcher schemaWatcher;
 
-    WrappedMongoDatabase( MongoDatabase mongoDatabase, ScanStrategy scanStrategy, boolean sortFields ){
+    WrappedMongoDatabase( MongoDatabase mongoDatabase, ScanStrategy scanStrategy, long sampleSize, boolean sortFields, SchemaCache schemaCache, boolean watchSchema ){
         this.mongoDatabase = mongoDatabase;
         this.scanStrategy = scanStrategy;
+        this.sampleSize = sampleSize;
         this.metaDatabase = new MetaDatabase(mongoDatabase.getName());
         this.sortFields = sortFields;
+        this.schemaCache = schemaCache;
+        this.watchSchema = watchSchema;
         try {
             if ( !"config".equals(mongoDatabase.getName()) && !"admin".equals(mongoDatabase.getName()) && !"local".equals(mongoDatabase.getName())) {
                 for (Document info : mongoDatabase.listCollections()) {
@@ -51,7 +58,10 @@ public class WrappedMongoDatabase implements ProxyObject {
                         final String name = info.getString("name");
                         final MetaCollection metaCollection = metaDatabase.createMetaCollection(name, false);
                         try {
-                            metaCollection.visitValidatorNode(null, true, definition, sortFields );
+                            metaCollection.visitValidatorNode(null, true, definition );
+                            if ( sortFields ) {
+                                metaCollection.sortFields();
+                            }
                         } catch (Throwable ex) {
                             LOGGER.log(Level.SEVERE, "Error parsing validation rule for " + name + "\n\n" + new GsonBuilder().setPrettyPrinting().create().toJson(definition) + "\n", ex);
                             metaDatabase.dropMetaCollection(name);
@@ -78,9 +88,23 @@ public class WrappedMongoDatabase implements ProxyObject {
         final MetaCollection metaCollection = metaDatabase.getMetaCollection(collectionName);
         if (metaCollection == null) {
             try {
-                return metaDatabase.createMetaCollection( collectionName, true ).scanDocumentsAndIndexes( getCollection(collectionName), scanStrategy, sortFields );
+                final String fingerprint = schemaCache != null ? getCacheFingerprint( collectionName ) : null;
+                MetaCollection scanned = fingerprint != null ? schemaCache.get( metaDatabase, collectionName, fingerprint ) : null;
+                if ( scanned == null ) {
+                    scanned = new MetaCollection( metaDatabase, collectionName, true ).scanDocumentsAndIndexes( getCollection(collectionName), scanStrategy, sampleSize, sortFields );
+                    if ( fingerprint != null ) {
+                        schemaCache.put( scanned, fingerprint );
+                    }
+                }
+                final MetaCollection added = metaDatabase.addMetaCollectionIfAbsent( scanned );
+                if ( watchSchema ) {
+                    watchCollections();
+                }
+                return added;
             } catch ( Throwable ex ){
                 LOGGER.log(Level.SEVERE, "Error discovering collection " + mongoDatabase.getName() + "." + collectionName + ". ", ex );
+                // REGISTER THE COLLECTION WITHOUT FIELDS, SO IT IS NOT SCANNED AND LOGGED AGAIN ON EACH CALL
+                metaDatabase.addMetaCollectionIfAbsent( new MetaCollection( metaDatabase, collectionName, true ));
             }
         } else {
             return metaCollection;
@@ -88,6 +112,110 @@ public class WrappedMongoDatabase implements ProxyObject {
         return null;
     }
 
+    /**
+     * Cheap checks telling if the collection changed since it was saved in the schema cache.
+     * Views have no count or UUID, so they are not cached.
+     * @return the fingerprint as JSON, or null if the collection should not be cached.
+     */
+    private String getCacheFingerprint( String collectionName ){
+        try {
+            final Document info = mongoDatabase.listCollections().filter( new Document("name", collectionName )).first();
+            if ( info == null || "view".equals( info.getString("type"))) return null;
+            final MongoCollection<Document> collection = mongoDatabase.getCollection( collectionName );
+            final List<Document> indexes = new ArrayList<>();
+            for ( Document index : collection.listIndexes() ){
+                indexes.add( new Document("name", index.get("name")).append("key", index.get("key")));
+            }
+            return new Document("uuid", String.valueOf( Util.getByPath( info, "info.uuid")))
+                    .append("count", collection.estimatedDocumentCount() )
+                    .append("indexes", indexes )
+                    // THE CACHED STRUCTURE DEPENDS ALSO ON THE SCAN SETTINGS
+                    .append("scan", scanStrategy + ":" + sampleSize + ":" + sortFields ).toJson();
+        } catch ( Throwable ex ){
+            LOGGER.log(Level.WARNING, "Cannot read the schema cache fingerprint of " + mongoDatabase.getName() + "." + collectionName + ". ", ex );
+            return null;
+        }
+    }
+
+    /**
+     * The watcher is started with the first discovered collection, so databases which are never discovered are not watched.
+     * Later discovered collections are added to the watched collections.
+     */
+    private synchronized void watchCollections(){
+        if ( schemaWatcher == null ){
+            schemaWatcher = new SchemaWatcher( mongoDatabase, metaDatabase, sortFields );
+        } else {
+            schemaWatcher.collectionsChanged();
+        }
+    }
+
+    public synchronized void stopSchemaWatcher(){
+        if ( schemaWatcher != null ){
+            schemaWatcher.stop();
+            schemaWatcher = null;
+        }
+    }
+
+    public void saveSchemaCache(){
+        if ( schemaCache != null ){
+            schemaCache.save();
+        }
+    }
+
+    /**
+     * Discover the collections which are not loaded yet using up to maxThreads threads. Virtual threads are used if the JVM has them.
+     * @return the collections in the order of the given names. Collections which cannot be discovered are skipped.
+     */
+    public List<MetaCollection> getMetaCollections( Collection<String> collectionNames, int maxThreads ) throws InterruptedException {
+        final Map<String,Future<MetaCollection>> futures = new LinkedHashMap<>();
+        int toScan = 0;
+        for ( String collectionName : collectionNames ){
+            if ( metaDatabase.getMetaCollection( collectionName ) == null ) toScan++;
+        }
+        if ( toScan > 1 && maxThreads > 1 ){
+            final ExecutorService executor = createDiscoverExecutor( Math.min( toScan, maxThreads ));
+            try {
+                for ( String collectionName : collectionNames ){
+                    if ( !futures.containsKey( collectionName ) && metaDatabase.getMetaCollection( collectionName ) == null ){
+                        futures.put( collectionName, executor.submit( () -> getMetaCollection( collectionName )));
+                    }
+                }
+                for ( Future<MetaCollection> future : futures.values() ){
+                    try {
+                        future.get();
+                    } catch ( ExecutionException ex ){
+                        LOGGER.log(Level.SEVERE, "Error discovering collections in " + mongoDatabase.getName() + ". ", ex.getCause() );
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        final List<MetaCollection> metaCollections = new ArrayList<>();
+        for ( String collectionName : collectionNames ){
+            // COLLECTIONS WHICH FAILED IN THE PARALLEL DISCOVERY ARE NOT SCANNED AGAIN
+            final MetaCollection metaCollection = futures.containsKey( collectionName ) ? metaDatabase.getMetaCollection( collectionName ) : getMetaCollection( collectionName );
+            if ( metaCollection != null ) metaCollections.add( metaCollection );
+        }
+        return metaCollections;
+    }
+
+    private static ExecutorService createDiscoverExecutor( int threads ){
+        ThreadFactory threadFactory;
+        try {
+            // Thread.ofVirtual().factory() IS AVAILABLE STARTING WITH JAVA 21
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke( null );
+            threadFactory = (ThreadFactory)Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke( builder );
+        } catch ( Throwable ex ){
+            threadFactory = runnable -> {
+                final Thread thread = new Thread( runnable, "MongoJdbc-Discover");
+                thread.setDaemon( true );
+                return thread;
+            };
+        }
+        return Executors.newFixedThreadPool( threads, threadFactory );
+    }
+
     @Override
     public boolean hasMember(String key) {
         return true;
@@ -62,3 +62,24 @@ var Date = function( str ) {
 var use = function(str){
     globalThis.db = client.getDatabase( String(str) );
 }
+
+
+// DATABASES ARE RESOLVED FROM THE __databases SCOPE ONLY WHEN A SCRIPT REFERENCES THEM, LIKE local.books.find()
+// IF THIS SCRIPT IS EVALUATED AGAIN IN THE SAME CONTEXT, __lazyDatabases IS KEPT, SO THE PROXY IS INSTALLED ONLY ONCE
+var __lazyDatabases = ( typeof __lazyDatabases !== 'undefined' && __lazyDatabases === true );
+if ( !__lazyDatabases ) {
+    try {
+        Object.setPrototypeOf( globalThis, new Proxy( Object.getPrototypeOf( globalThis ), {
+            has: function( target, key ) {
+                return key in target || ( typeof key === 'string' && Object.prototype.hasOwnProperty.call( globalThis, '__databases' ) && key in globalThis.__databases );
+            },
+            get: function( target, key, receiver ) {
+                if ( key in target || typeof key !== 'string' || !Object.prototype.hasOwnProperty.call( globalThis, '__databases' ) ) {
+                    return Reflect.get( target, key, receiver );
+                }
+                return key in globalThis.__databases ? globalThis.__databases[key] : undefined;
+            }
+        }));
+        __lazyDatabases = true;
+    } catch ( error ) { }
+}
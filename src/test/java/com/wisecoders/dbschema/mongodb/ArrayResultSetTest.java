@@ -0,0 +1,69 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.resultSet.ArrayResultSet;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.junit.Assert.*;
+
+/**
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+
+public class ArrayResultSetTest {
+
+    @Test
+    public void testTypedColumns() throws SQLException {
+        ArrayResultSet result = new ArrayResultSet();
+        result.setColumnNames( new String[]{ "COLUMN_NAME", "DATA_TYPE", "KEY_SEQ", "NON_UNIQUE" });
+        result.setColumnTypes( Types.VARCHAR, Types.INTEGER, Types.SMALLINT, Types.BOOLEAN );
+        for ( int i = 0; i < 1000; i++ ){
+            result.addRow( new Object[]{ "field" + i, i, i % 10, i % 2 == 0 });
+        }
+        result.addRow( new Object[]{ "last", "12", null, "true" });
+        assertEquals( 1001, result.getRowCount() );
+
+        assertTrue( result.next() );
+        assertEquals( "field0", result.getString("COLUMN_NAME"));
+        assertTrue( result.getBoolean( 4 ));
+        for ( int i = 1; i < 1000; i++ ) assertTrue( result.next() );
+        assertEquals( 999, result.getInt("DATA_TYPE"));
+        assertEquals( 9, result.getShort( 3 ));
+        assertEquals( "999", result.getString( 2 ));
+
+        assertTrue( result.next() );
+        assertEquals( 12, result.getInt( 2 ));
+        assertEquals( 0, result.getShort( 3 ));
+        assertTrue( result.wasNull() );
+        assertNull( result.getObject( 3 ));
+        assertTrue( result.getBoolean("NON_UNIQUE"));
+        assertFalse( result.next() );
+
+        assertEquals( Types.INTEGER, result.getMetaData().getColumnType( 2 ));
+    }
+
+    @Test
+    public void testOutOfRange() throws SQLException {
+        ArrayResultSet result = new ArrayResultSet();
+        result.setColumnNames( new String[]{ "NAME", "KEY_SEQ" });
+        result.setColumnTypes( Types.VARCHAR, Types.SMALLINT );
+        try {
+            result.addRow( new Object[]{ "big", 40000 });
+            fail("Out of range value stored in SMALLINT column");
+        } catch ( IllegalArgumentException ex ){
+            assertTrue( ex.getCause() instanceof SQLException );
+        }
+        result.addRow( new Object[]{ "300", 7 });
+        assertTrue( result.next() );
+        assertEquals( 7, result.getByte( 2 ));
+        assertEquals( 7, result.getByte("KEY_SEQ"));
+        try {
+            result.getByte( 1 );
+            fail("Out of range value read as byte");
+        } catch ( SQLException expected ){
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+
+public class FastPathQueryTest {
+
+    @Test
+    public void testFind() {
+        FastPathQuery query = FastPathQuery.parse("db.orders.find({ status: 'A', qty: { $gt: 4 } }, {_id:0}).sort({qty:-1}).limit(20);");
+        assertNotNull( query );
+        assertEquals("db", query.databaseName );
+        assertEquals("orders", query.collectionName );
+        assertEquals("find", query.call.method );
+        assertEquals( 2, query.call.arguments.size() );
+        assertEquals( "A", ((Map)query.call.arguments.get(0)).get("status"));
+        assertEquals( 2, query.chain.size() );
+        assertEquals( 20, query.chain.get(1).arguments.get(0));
+    }
+
+    @Test
+    public void testAggregate() {
+        FastPathQuery query = FastPathQuery.parse("local.getCollection('books').aggregate([{ $match: {name:\"Java\"}}, { $project: { 'bookName': '$name', qty: 1 }}])");
+        assertNotNull( query );
+        assertEquals("local", query.databaseName );
+        assertEquals("books", query.collectionName );
+        assertEquals( 2, ((List)query.call.arguments.get(0)).size() );
+    }
+
+    @Test
+    public void testFallbackToJavaScript() {
+        assertNull( FastPathQuery.parse("local.books.find(/^J/)"));
+        assertNull( FastPathQuery.parse("local.books.find({date: ISODate('2019-12-25T07:23:18.408Z')})"));
+        assertNull( FastPathQuery.parse("local.books.find({name: { $regex: 'J' }})"));
+        assertNull( FastPathQuery.parse("local.books.find({qty: 1 + 2})"));
+        assertNull( FastPathQuery.parse("local.books.find().toArray()"));
+        assertNull( FastPathQuery.parse("local.books.find(); local.books.find()"));
+        assertNull( FastPathQuery.parse("local.createView('booksView','books', [])"));
+        assertNull( FastPathQuery.parse("local.books.insertOne({name: 'Java'})"));
+    }
+
+    @Test
+    public void testPlaceholders() {
+        PreparedQuery query = new PreparedQuery("db.orders.find({ status: ?, qty: { $gt: ? }, note: 'why?' }).limit(?)", true );
+        assertEquals( 3, query.parameterCount );
+        assertEquals("db.orders.find({ status: __params[0], qty: { $gt: __params[1] }, note: 'why?' }).limit(__params[2])", query.script );
+        FastPathQuery bound = query.getFastPathQuery( new Object[]{ "A", 4, 20 });
+        assertNotNull( bound );
+        assertEquals( "A", ((Map)bound.call.arguments.get(0)).get("status"));
+        assertEquals( 4, ((Map)((Map)bound.call.arguments.get(0)).get("qty")).get("$gt"));
+        assertEquals( 20, bound.chain.get(0).arguments.get(0));
+        assertNull( query.getFastPathQuery( new Object[]{ "A", 4, "twenty" }));
+
+        assertEquals( 0, new PreparedQuery("db.orders.find({ qty: x > 1 ? 1 : 2 })", true ).parameterCount );
+    }
+}
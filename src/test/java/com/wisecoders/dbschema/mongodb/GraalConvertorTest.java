@@ -0,0 +1,25 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+
+public class GraalConvertorTest {
+
+    @Test
+    public void testProjection() {
+        Document projection = GraalConvertor.toProjection( Arrays.asList("name", "address.city", "address", "tags.a.b", "tags.a", "ab.c"));
+        assertEquals( new Document("name", 1 ).append("address", 1 ).append("tags.a", 1 ).append("ab.c", 1 ).append("_id", 0 ), projection );
+
+        projection = GraalConvertor.toProjection( Arrays.asList("_id", "_id.x", "qty"));
+        assertEquals( new Document("_id", 1 ).append("qty", 1 ), projection );
+    }
+}
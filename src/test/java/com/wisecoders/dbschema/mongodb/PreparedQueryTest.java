@@ -0,0 +1,53 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+
+public class PreparedQueryTest {
+
+    @Test
+    public void testPlaceholders() {
+        PreparedQuery query = new PreparedQuery("db.orders.find({a: ?, b: [?, ?]})", true );
+        assertEquals( 3, query.parameterCount );
+        assertEquals( "db.orders.find({a: __params[0], b: [__params[1], __params[2]]})", query.script );
+        assertNotNull( query.getFastPathQuery( new Object[]{ 1, 2, 3 }));
+    }
+
+    @Test
+    public void testQuotedStrings() {
+        PreparedQuery query = new PreparedQuery("db.orders.find({a: '?', b: \"(?)\", c: `[?]`, d: ?})", true );
+        assertEquals( 1, query.parameterCount );
+        assertEquals( "db.orders.find({a: '?', b: \"(?)\", c: `[?]`, d: __params[0]})", query.script );
+    }
+
+    @Test
+    public void testRegularExpressions() {
+        PreparedQuery query = new PreparedQuery("db.orders.find({a: /[?]/, b: /(?)x/i, c: /a\\/(?)/, d: /[/(?)]/, e: ?})", true );
+        assertEquals( 1, query.parameterCount );
+        assertTrue( query.script.endsWith("e: __params[0]})"));
+        // A DIVISION IS NOT A REGULAR EXPRESSION
+        query = new PreparedQuery("db.orders.find({a: x / 2, b: (?), c: y / 3})", true );
+        assertEquals( 1, query.parameterCount );
+    }
+
+    @Test
+    public void testTernary() {
+        PreparedQuery query = new PreparedQuery("var x = a ? b : c; db.orders.find({a: x > 1 ? 'big' : 'small', b: ?})", true );
+        assertEquals( 1, query.parameterCount );
+        assertTrue( query.script.contains("a ? b : c"));
+        assertTrue( query.script.endsWith("b: __params[0]})"));
+    }
+
+    @Test
+    public void testWithoutPlaceholders() {
+        PreparedQuery query = new PreparedQuery("db.orders.find({a: ?})", false );
+        assertEquals( 0, query.parameterCount );
+        assertEquals( query.query, query.script );
+    }
+}
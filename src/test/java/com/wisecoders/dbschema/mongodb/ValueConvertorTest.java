@@ -0,0 +1,67 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.resultSet.ValueConvertor;
+import org.bson.*;
+import org.bson.types.Decimal128;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+
+public class ValueConvertorTest {
+
+    @Test
+    public void testNumbers() throws SQLException {
+        assertEquals( 5, ValueConvertor.toLong( 5 ));
+        assertEquals( 5, ValueConvertor.toLong( new BsonInt32( 5 )));
+        assertEquals( 7L, ValueConvertor.toLong( new BsonInt64( 7L )));
+        assertEquals( 2.5, ValueConvertor.toDouble( new BsonDouble( 2.5 )), 0 );
+        assertEquals( 12, ValueConvertor.toLong( "12" ));
+        assertEquals( new BigDecimal("1.25"), ValueConvertor.toBigDecimal( new Decimal128( new BigDecimal("1.25"))));
+        assertEquals( 0, ValueConvertor.toLong( null ));
+        assertTrue( ValueConvertor.isNull( BsonNull.VALUE ));
+    }
+
+    @Test
+    public void testDates() throws SQLException {
+        assertEquals( 1000L, ValueConvertor.toTimestamp( new java.util.Date( 1000L )).getTime() );
+        assertEquals( 1000L, ValueConvertor.toDate( new BsonDateTime( 1000L )).getTime() );
+        assertEquals( 1000L, ValueConvertor.toTimestamp( new BsonTimestamp( 1, 0 )).getTime() );
+    }
+
+    @Test
+    public void testNumberRange() throws SQLException {
+        assertEquals( Integer.MAX_VALUE, ValueConvertor.toInt( new BsonInt64( Integer.MAX_VALUE )));
+        assertEquals( -128, ValueConvertor.toByte( -128 ));
+        assertEquals( 2, ValueConvertor.toShort( new BsonDouble( 2.5 )));
+        assertOutOfRange( () -> ValueConvertor.toInt( new BsonInt64( Integer.MAX_VALUE + 1L )));
+        assertOutOfRange( () -> ValueConvertor.toInt( 1e30 ));
+        assertOutOfRange( () -> ValueConvertor.toShort( 40000 ));
+        assertOutOfRange( () -> ValueConvertor.toByte( new BsonInt32( 128 )));
+        assertOutOfRange( () -> ValueConvertor.toByte("300"));
+    }
+
+    private interface Conversion {
+        void run() throws SQLException;
+    }
+
+    private static void assertOutOfRange( Conversion conversion ){
+        try {
+            conversion.run();
+            fail("Out of range value converted");
+        } catch ( SQLException expected ){
+        }
+    }
+
+    @Test( expected = SQLException.class )
+    public void testInvalidNumber() throws SQLException {
+        ValueConvertor.toLong("abc");
+    }
+}
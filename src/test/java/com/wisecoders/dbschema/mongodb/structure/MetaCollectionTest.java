@@ -0,0 +1,63 @@
+package com.wisecoders.dbschema.mongodb.structure;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+
+public class MetaCollectionTest {
+
+    private static MetaCollection scan( Document... documents ){
+        final MetaCollection collection = new MetaCollection( new MetaDatabase("db"), "persons", false );
+        for ( Document document : documents ){
+            collection.scanDocument( document, 0 );
+        }
+        return collection;
+    }
+
+    @Test
+    public void testFindFieldByExactPath() {
+        final MetaCollection collection = scan( new Document("addr", "Main Street 1").append("name", "John"));
+        // AN INDEX ON 'address' SHOULD NOT RESOLVE TO THE FIELD 'addr'
+        assertNull( collection.findField("address"));
+        assertNull( collection.findField("address.city"));
+        assertSame( collection.getField("addr"), collection.findField("addr"));
+    }
+
+    @Test
+    public void testFindFieldParentFallback() {
+        final MetaCollection collection = scan( new Document("address", new Document("geo", new Document("lat", 1.5 ))));
+        final MetaObject address = (MetaObject)collection.getObjectOrField("address");
+        final MetaObject geo = (MetaObject)address.getObjectOrField("geo");
+        assertSame( geo.getField("lat"), collection.findField("address.geo.lat"));
+        // UNKNOWN PATHS RESOLVE TO THE LONGEST KNOWN PARENT PATH
+        assertSame( geo, collection.findField("address.geo.lng"));
+        assertSame( address, collection.findField("address.zip.code"));
+        assertNull( collection.findField("other.geo"));
+    }
+
+    @Test
+    public void testValueAndObjectWithSameName() {
+        final MetaCollection collection = scan(
+                new Document("contact", "john@example.com"),
+                new Document("contact", new Document("email", "john@example.com").append("phone", "123")));
+        final MetaField value = collection.getField("contact");
+        final MetaField object = collection.getObjectOrField("contact");
+        assertNotNull( value );
+        assertTrue( object instanceof MetaObject );
+        assertNotSame( value, object );
+        // _id, THE VALUE AND THE OBJECT
+        assertEquals( 3, collection.fields.size() );
+        assertEquals( 2, ((MetaObject)object).fields.size() );
+        // THE CHILD FIELDS ARE FOUND UNDER THE OBJECT, THE PATH ITSELF RESOLVES TO THE FIRST FIELD ADDED
+        assertSame( ((MetaObject)object).getField("email"), collection.findField("contact.email"));
+        assertSame( value, collection.findField("contact"));
+        // THE OBJECT IS MISSING IN THE FIRST DOCUMENT
+        assertFalse( object.isMandatory() );
+    }
+}
@@ -0,0 +1,75 @@
+package com.wisecoders.dbschema.mongodb.structure;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Licensed under <a href="https://creativecommons.org/licenses/by-nd/4.0/deed.en">CC BY-ND 4.0 DEED</a>, copyright <a href="https://wisecoders.com">Wise Coders GmbH</a>, used by <a href="https://dbschema.com">DbSchema Database Designer</a>.
+ * Code modifications allowed only as pull requests to the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public GIT repository</a>.
+ */
+
+public class SchemaInferenceTest {
+
+    private static final String SEP = SchemaInference.PATH_SEPARATOR;
+
+    private static Document row( String path, String type, boolean arrayElement, long count ){
+        return new Document("_id", new Document("p", path ).append("t", type ).append("a", arrayElement )).append("count", count );
+    }
+
+    @Test
+    public void testInferredTree() {
+        final ObjectId customerId = new ObjectId();
+        final MetaCollection collection = new MetaCollection( new MetaDatabase("db"), "orders", false );
+        final SchemaInference inference = new SchemaInference( collection );
+        // 10 SAMPLED DOCUMENTS
+        inference.addRow( row("", "object", false, 10 ));
+        inference.addRow( row("_id", "objectId", false, 10 ).append("objectId", new ObjectId()));
+        inference.addRow( row("customer", "objectId", false, 10 ).append("objectId", customerId ));
+        inference.addRow( row("note", "string", false, 4 ));
+        inference.addRow( row("address", "object", false, 10 ));
+        inference.addRow( row("address" + SEP + "city", "string", false, 10 ));
+        inference.addRow( row("address" + SEP + "zip", "int", false, 6 ));
+        inference.addRow( row("tags", "array", false, 10 ));
+        inference.addRow( row("tags", "string", true, 25 ));
+        inference.addRow( row("items", "array", false, 10 ));
+        inference.addRow( row("items", "object", true, 30 ));
+        inference.addRow( row("items" + SEP + "qty", "int", false, 30 ));
+        // A FIELD NAME CONTAINING '.' IS ONE FIELD OF THE ROOT, NOT A CHILD OF 'address'
+        inference.addRow( row("address.city", "string", false, 2 ));
+
+        assertEquals( 10, inference.apply() );
+
+        assertTrue( collection.getField("_id").isMandatory() );
+        assertEquals( customerId, collection.getField("customer").getObjectId() );
+        assertFalse( collection.getField("note").isMandatory() );
+        assertEquals( "String", collection.getField("note").getTypeName() );
+
+        final MetaObject address = (MetaObject)collection.getObjectOrField("address");
+        assertEquals( MetaObject.TYPE_OBJECT, address.getJavaType() );
+        assertTrue( address.getField("city").isMandatory() );
+        assertFalse( address.getField("zip").isMandatory() );
+        assertEquals( "Integer", address.getField("zip").getTypeName() );
+        assertEquals( 2, address.fields.size() );
+
+        final MetaField dotted = collection.getField("address.city");
+        assertNotNull( dotted );
+        assertSame( collection, dotted.parentObject );
+
+        assertEquals( "array[string]", collection.getField("tags").getTypeName() );
+
+        final MetaObject items = (MetaObject)collection.getObjectOrField("items");
+        assertEquals( "array[object]", items.getTypeName() );
+        assertTrue( items.getField("qty").isMandatory() );
+    }
+
+    @Test
+    public void testNoDocuments() {
+        final MetaCollection collection = new MetaCollection( new MetaDatabase("db"), "empty", false );
+        assertEquals( 0, new SchemaInference( collection ).apply() );
+        // ONLY THE _id FIELD CREATED WITH THE COLLECTION
+        assertEquals( 1, collection.fields.size() );
+    }
+}